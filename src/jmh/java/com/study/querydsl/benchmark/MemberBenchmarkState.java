@@ -0,0 +1,95 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 벤치마크 공용 상태 - 임베디드 H2 에 members 만큼 회원을 넣고 스프링 컨텍스트를 띄운다
+ */
+@State(Scope.Benchmark)
+public class MemberBenchmarkState {
+    static final int TEAMS = 100;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000", "1000000"})
+    public int members;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+    JPAQueryFactory queryFactory;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = startContext();
+        seed(context.getBean(JdbcTemplate.class));
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+
+        condition = new MemberSearchCondition();
+        condition.setTeamname("team7");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static ConfigurableApplicationContext startContext() {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=bench",
+                        "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--decorator.datasource.enabled=false", // p6spy 끔
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn",
+                        "--member.count-cache.ttl-millis=0");
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(new Object[]{(long) i + 1, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (id, name) values (?, ?)", teams);
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < members; i++) {
+            batch.add(new Object[]{(long) TEAMS + i + 1, "member" + i, i % 100, (long) (i % TEAMS) + 1});
+            if (batch.size() == INSERT_BATCH) {
+                insertMembers(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertMembers(jdbcTemplate, batch);
+        }
+    }
+
+    private void insertMembers(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,94 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 회원 적재 처리량 (rows/sec) - save 루프 vs saveAllInBatch
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberIngestBenchmark {
+    private static final int ROWS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class IngestState {
+        ConfigurableApplicationContext context;
+        MemberJpaRepository memberJpaRepository;
+        TransactionTemplate transactionTemplate;
+        JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = MemberBenchmarkState.startContext();
+            memberJpaRepository = context.getBean(MemberJpaRepository.class);
+            transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+        }
+
+        @TearDown(Level.Iteration)
+        public void truncate() {
+            jdbcTemplate.execute("delete from member");
+            jdbcTemplate.execute("delete from team");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void saveLoop(IngestState state) {
+        List<Member> members = newMembers();
+        state.transactionTemplate.executeWithoutResult(status -> {
+            for (Member m : members) {
+                state.memberJpaRepository.save(m);
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long saveAllInBatch(IngestState state) {
+        return state.memberJpaRepository.saveAllInBatch(newMembers(), 500);
+    }
+
+    private List<Member> newMembers() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < MemberBenchmarkState.TEAMS; i++) {
+            teams.add(new Team("team" + i));
+        }
+        List<Member> members = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            members.add(new Member("member" + i, i % 100, teams.get(i % teams.size())));
+        }
+        return members;
+    }
+}
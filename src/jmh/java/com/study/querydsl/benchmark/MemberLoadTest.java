@@ -0,0 +1,170 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.support.MemberDataGenerator;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/*
+ * 로컬 부하 테스트 - 임베디드 H2 + 톰캣을 띄우고 MemberDataGenerator 로 데이터를 넣은 뒤
+ * /v1, /v2, /v3 를 clients 개의 동시 클라이언트로 호출해서 처리량과 p50/p99/p999 지연을 출력한다
+ *
+ * gradle loadTest -Pload.members=1000000 -Pload.teams=1000 -Pload.clients=32 -Pload.seconds=30
+ */
+public class MemberLoadTest {
+    private static final int MEMBERS = Integer.getInteger("load.members", 1_000_000);
+    private static final int TEAMS = Integer.getInteger("load.teams", 1000);
+    private static final double TEAM_SKEW = Double.parseDouble(System.getProperty("load.team-skew", "1.0"));
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 10);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+    private static final List<String> ENDPOINTS = Arrays.asList(System.getProperty("load.endpoints", "v1,v2,v3").split(","));
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = startServer()) {
+            long started = System.nanoTime();
+            context.getBean(MemberDataGenerator.class).generate(MEMBERS, TEAMS, TEAM_SKEW, 1000, 42L);
+            System.out.printf("seeded %,d members / %,d teams in %ds%n",
+                    MEMBERS, TEAMS, Duration.ofNanos(System.nanoTime() - started).getSeconds());
+
+            String base = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            System.out.printf("%-4s %10s %8s %10s %9s %9s %9s %9s%n",
+                    "api", "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+            for (String endpoint : ENDPOINTS) {
+                IntFunction<String> uri = requests(base, endpoint.trim());
+                run(client, uri, WARMUP_SECONDS);
+                run(client, uri, SECONDS).print(endpoint.trim());
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startServer() {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--spring.profiles.active=bench",
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--decorator.datasource.enabled=false", // p6spy 끔
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn",
+                        "--member.n-plus-one.enabled=false");
+    }
+
+    /*
+     * 요청 조건 - 팀은 균등하게 골라서 큰 팀/작은 팀이 섞이게 하고, /v1 은 가드가 막지 않도록 항상 조건을 붙인다
+     */
+    private static IntFunction<String> requests(String base, String endpoint) {
+        return teamIndex -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int ageGoe = 20 + random.nextInt(30);
+            String query = "teamname=team" + teamIndex + "&ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 5);
+            if (!endpoint.equals("v1")) {
+                query += "&page=" + random.nextInt(5) + "&size=20";
+            }
+            return base + "/" + endpoint + "/members?" + query;
+        };
+    }
+
+    private static Result run(HttpClient client, IntFunction<String> uri, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    Result result = new Result(seconds);
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(uri.apply(ThreadLocalRandom.current().nextInt(TEAMS))))
+                                .timeout(Duration.ofSeconds(60))
+                                .GET()
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            result.add(System.nanoTime() - start, response.statusCode() == 200);
+                        } catch (IOException e) {
+                            result.add(System.nanoTime() - start, false);
+                        }
+                    }
+                    return result;
+                }));
+            }
+            Result total = new Result(seconds);
+            for (Future<Result> future : futures) {
+                total.merge(future.get());
+            }
+            return total;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    // 클라이언트별로 지연(ns)을 모았다가 합쳐서 정렬
+    private static class Result {
+        private final int seconds;
+        private long[] latencies = new long[1024];
+        private int size;
+        private int errors;
+
+        private Result(int seconds) {
+            this.seconds = seconds;
+        }
+
+        private void add(long nanos, boolean ok) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        private void merge(Result other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        private void print(String endpoint) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            System.out.printf("%-4s %,10d %,8d %,10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint, size, errors, (double) size / seconds,
+                    millis(sorted, 0.50), millis(sorted, 0.99), millis(sorted, 0.999),
+                    size == 0 ? 0 : sorted[size - 1] / 1e6);
+        }
+
+        private static double millis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
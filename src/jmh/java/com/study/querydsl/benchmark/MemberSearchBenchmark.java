@@ -0,0 +1,58 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.dto.MemberTeamDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * search vs searchByBuilder vs searchByTemplate, 페이징 3종 비교
+ * SampleTime 모드로 p50/p99/p999 를 같이 본다
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberSearchBenchmark {
+    private static final PageRequest PAGE = PageRequest.of(10, 20);
+
+    @Benchmark
+    public List<MemberTeamDto> search(MemberBenchmarkState state) {
+        return state.memberJpaRepository.search(state.condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder(MemberBenchmarkState state) {
+        return state.memberJpaRepository.searchByBuilder(state.condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByTemplate(MemberBenchmarkState state) {
+        return state.memberJpaRepository.searchByTemplate(state.condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> pagingSimple(MemberBenchmarkState state) {
+        return state.memberRepository.pagingSimple(state.condition, PAGE);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> pagingComplicate(MemberBenchmarkState state) {
+        return state.memberRepository.pagingComplicate(state.condition, PAGE);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> paingOptimize(MemberBenchmarkState state) {
+        return state.memberRepository.paingOptimize(state.condition, PAGE);
+    }
+}
@@ -0,0 +1,78 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.support.LambdaProjections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/*
+ * DB 없이 행 하나를 DTO 로 만드는 비용만 비교 (FactoryExpression.newInstance)
+ * -prof gc 의 gc.alloc.rate.norm 으로 행당 할당량을 같이 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionFactoryBenchmark {
+    private final Object[] row = {1L, "member1", 10, 1L, "teamA"};
+
+    private final FactoryExpression<MemberTeamDto> bean = Projections.bean(MemberTeamDto.class,
+            member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname"));
+    private final FactoryExpression<MemberTeamDto> fields = Projections.fields(MemberTeamDto.class,
+            member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname"));
+    private final FactoryExpression<MemberTeamDto> constructor = Projections.constructor(MemberTeamDto.class,
+            member.id, member.username, member.age, team.id, team.name);
+    private final FactoryExpression<MemberTeamDto> queryProjection = new QMemberTeamDto(
+            member.id, member.username, member.age, team.id, team.name);
+    private final FactoryExpression<MemberTeamDto> lambdaBean = LambdaProjections.bean(MemberTeamDto.class,
+            member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname"));
+    private final FactoryExpression<MemberTeamDto> lambdaConstructor = LambdaProjections.constructor(MemberTeamDto.class,
+            member.id, member.username, member.age, team.id, team.name);
+
+    @Benchmark
+    public MemberTeamDto bean() {
+        return bean.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto fields() {
+        return fields.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto constructor() {
+        return constructor.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto queryProjection() {
+        return queryProjection.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto lambdaBean() {
+        return lambdaBean.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberTeamDto lambdaConstructor() {
+        return lambdaConstructor.newInstance(row);
+    }
+}
@@ -0,0 +1,25 @@
+package com.study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/*
+ * 페이징 카운트 쿼리를 컨텐츠 쿼리와 동시에 돌리기 위한 전용 스레드풀
+ * 큐가 가득 차면 RejectedExecution -> 호출 스레드에서 직접 센다
+ */
+@Configuration
+public class MemberCountExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor memberCountExecutor(@Value("${member.paging.count-pool-size:4}") int poolSize,
+                                                      @Value("${member.paging.count-queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("member-count-");
+        return executor;
+    }
+}
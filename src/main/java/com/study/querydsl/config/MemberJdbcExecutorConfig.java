@@ -0,0 +1,27 @@
+package com.study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/*
+ * 비동기 검색(MemberAsyncRepository) 전용 스레드풀
+ * 스레드 하나가 커넥션 하나를 잡으므로 커넥션 풀 크기에 맞춘다 - 더 많아봐야 커넥션 대기만 늘어난다
+ * 큐까지 차면 TaskRejectedException -> 503 (MemberController)
+ */
+@Configuration
+public class MemberJdbcExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor memberJdbcExecutor(
+            @Value("${member.async.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+            @Value("${member.async.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("member-jdbc-");
+        return executor;
+    }
+}
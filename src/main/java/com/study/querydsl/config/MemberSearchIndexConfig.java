@@ -0,0 +1,117 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberSearchIndex;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/*
+ * 회원 검색 메모리 인덱스 - 커밋된 insert/update/delete 이벤트로 갱신, 시작할 때 전체 적재
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.search-index.enabled", havingValue = "true")
+public class MemberSearchIndexConfig {
+
+    @Bean
+    public MemberSearchIndex memberSearchIndex(EntityManagerFactory emf) {
+        return new MemberSearchIndex(MemberSearchIndex.fromDatabase(emf));
+    }
+
+    @Bean
+    public SmartInitializingSingleton memberSearchIndexListeners(EntityManagerFactory emf, MemberSearchIndex index) {
+        return () -> {
+            EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            IndexUpdater updater = new IndexUpdater(index);
+            registry.appendListeners(EventType.POST_COMMIT_INSERT, updater);
+            registry.appendListeners(EventType.POST_COMMIT_UPDATE, updater);
+            registry.appendListeners(EventType.POST_COMMIT_DELETE, updater);
+            index.scheduleInitialLoad();
+        };
+    }
+
+    private static class IndexUpdater implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+        private final MemberSearchIndex index;
+
+        private IndexUpdater(MemberSearchIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            saved(event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            saved(event.getEntity());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Member) {
+                index.memberDeleted((Long) event.getId());
+            } else if (event.getEntity() instanceof Team) {
+                index.teamDeleted((Long) event.getId());
+            }
+        }
+
+        private void saved(Object entity) {
+            if (entity instanceof Member) {
+                Member m = (Member) entity;
+                index.memberSaved(m.getId(), m.getUsername(), m.getAge(), teamId(m.getTeam()));
+            } else if (entity instanceof Team) {
+                Team t = (Team) entity;
+                index.teamSaved(t.getId(), t.getName());
+            }
+        }
+
+        // 커밋 후라 프록시를 초기화할 수 없으므로 식별자만 꺼낸다
+        private static Long teamId(Team team) {
+            if (team == null) {
+                return null;
+            }
+            if (team instanceof HibernateProxy) {
+                return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+            }
+            return team.getId();
+        }
+
+        // 롤백된 변경은 반영하지 않는다
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            Class<?> type = persister.getMappedClass();
+            return type == Member.class || type == Team.class;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.support.NPlusOneDetector;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.hibernate.cfg.AvailableSettings.STATEMENT_INSPECTOR;
+
+/*
+ * N+1 감지기 등록 - statement inspector + 지연 로딩 이벤트 리스너 + 요청 단위 범위 필터
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.n-plus-one.enabled", havingValue = "true")
+public class NPlusOneDetectorConfig {
+
+    @Bean
+    public NPlusOneDetector nPlusOneDetector(@Value("${member.n-plus-one.threshold:2}") int threshold,
+                                             @Value("${member.n-plus-one.mode:log}") String mode) {
+        return new NPlusOneDetector(threshold, NPlusOneDetector.Mode.valueOf(mode.toUpperCase()));
+    }
+
+    // 이미 설정된 inspector 가 있으면 그 뒤에 이어 붙인다
+    @Bean
+    public HibernatePropertiesCustomizer nPlusOneInspectorCustomizer(NPlusOneDetector detector) {
+        return properties -> {
+            Object existing = properties.get(STATEMENT_INSPECTOR);
+            if (existing == null) {
+                properties.put(STATEMENT_INSPECTOR, detector);
+                return;
+            }
+            StatementInspector first = toInspector(existing);
+            properties.put(STATEMENT_INSPECTOR, (StatementInspector) sql -> detector.inspect(first.inspect(sql)));
+        };
+    }
+
+    @Bean
+    public SmartInitializingSingleton nPlusOneLazyLoadListeners(EntityManagerFactory emf) {
+        return () -> {
+            EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            registry.prependListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) event ->
+                    NPlusOneDetector.markLazyLoad(event.getCollection().getRole()));
+            registry.prependListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> {
+                if (loadType == LoadEventListener.IMMEDIATE_LOAD) { // 프록시 초기화
+                    NPlusOneDetector.markLazyLoad(event.getEntityClassName());
+                }
+            });
+            // 2차 캐시 등에서 가져와서 SQL 이 안나갔으면 표시를 지운다
+            registry.appendListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) event ->
+                    NPlusOneDetector.clearLazyLoad());
+            registry.appendListeners(EventType.LOAD, (LoadEventListener) (event, loadType) ->
+                    NPlusOneDetector.clearLazyLoad());
+        };
+    }
+
+    @Bean
+    public OncePerRequestFilter nPlusOneRequestFilter(NPlusOneDetector detector) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                try (NPlusOneDetector.Scope ignored = detector.begin(request.getMethod() + " " + request.getRequestURI())) {
+                    chain.doFilter(request, response);
+                }
+            }
+        };
+    }
+
+    private static StatementInspector toInspector(Object value) {
+        if (value instanceof StatementInspector) {
+            return (StatementInspector) value;
+        }
+        Class<?> type = value instanceof Class ? (Class<?>) value : ClassUtils.resolveClassName(value.toString(), null);
+        return (StatementInspector) BeanUtils.instantiateClass(type);
+    }
+}
@@ -0,0 +1,61 @@
+package com.study.querydsl.config;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 레플리카 상태를 주기적으로 확인한다
+ * lagQuery 가 있으면 그 결과(초)가 maxLagSeconds 이하일 때만, 없으면 커넥션이 살아있으면 사용 가능
+ */
+public class ReplicaLagMonitor implements Closeable {
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagSeconds, long checkIntervalMillis) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        check();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    void check() {
+        try (Connection connection = replica.getConnection()) {
+            if (lagQuery == null) {
+                usable = connection.isValid(1);
+                return;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                usable = resultSet.next() && resultSet.getLong(1) <= maxLagSeconds;
+            }
+        } catch (SQLException e) {
+            usable = false; // 레플리카 장애 -> 프라이머리로 읽는다
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package com.study.querydsl.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * @Transactional(readOnly = true) 면 레플리카, 아니면 프라이머리로 보낸다
+ * 트랜잭션 매니저는 readOnly 플래그를 세팅하기 전에 커넥션을 달라고 하므로
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 statement 시점에 라우팅한다
+ */
+public class ReplicationDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor monitor;
+
+    public ReplicationDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.monitor = monitor;
+
+        RoutingDataSource routing = new RoutingDataSource(monitor);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        setTargetDataSource(routing);
+        afterPropertiesSet();
+    }
+
+    @Override
+    public void close() {
+        monitor.close();
+        closeQuietly(primary);
+        closeQuietly(replica);
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static class RoutingDataSource extends AbstractRoutingDataSource {
+        private final ReplicaLagMonitor monitor;
+
+        private RoutingDataSource(ReplicaLagMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            return readOnly && monitor.isReplicaUsable() ? REPLICA : PRIMARY;
+        }
+    }
+}
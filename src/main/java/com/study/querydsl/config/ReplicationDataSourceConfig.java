@@ -0,0 +1,42 @@
+package com.study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/*
+ * member.datasource.replica.url 이 있을 때만 프라이머리/레플리카 라우팅 데이터소스를 쓴다
+ * 프라이머리는 기존 spring.datasource 설정 그대로
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.datasource.replica.url")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${member.datasource.replica.url}") String replicaUrl,
+                                 @Value("${member.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                 @Value("${member.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                 @Value("${member.datasource.replica.lag-query:}") String lagQuery,
+                                 @Value("${member.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+                                 @Value("${member.datasource.replica.check-interval-millis:1000}") long checkIntervalMillis) {
+        DataSource primary = properties.initializeDataSourceBuilder().build();
+        DataSource replica = DataSourceBuilder.create()
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, hasText(lagQuery) ? lagQuery : null,
+                maxLagSeconds, checkIntervalMillis);
+        return new ReplicationDataSource(primary, replica, monitor);
+    }
+}
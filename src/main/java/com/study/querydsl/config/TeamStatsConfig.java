@@ -0,0 +1,51 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.TeamStatsTracker;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/*
+ * 팀 통계(TeamStats) 증분 갱신 - 회원 insert/update/delete 이벤트 리스너 등록, 시작할 때 전체 재계산
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.team-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class TeamStatsConfig {
+
+    @Bean
+    public TeamStatsTracker teamStatsTracker(EntityManager em) {
+        return new TeamStatsTracker(em);
+    }
+
+    @Bean
+    public SmartInitializingSingleton teamStatsListeners(EntityManagerFactory emf, TeamStatsTracker tracker) {
+        return () -> {
+            EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_INSERT, tracker);
+            registry.appendListeners(EventType.POST_UPDATE, tracker);
+            registry.appendListeners(EventType.POST_DELETE, tracker);
+            registry.appendListeners(EventType.FLUSH, tracker); // 기본 flush 리스너 다음에 실행
+            registry.appendListeners(EventType.AUTO_FLUSH, tracker);
+        };
+    }
+
+    // 이벤트를 거치지 않은 데이터(기능을 켜기 전, JDBC 로 적재한 회원)를 맞춘다 - 끄면 필요할 때 TeamStatsTracker.rebuild()
+    // 시작할 때마다 H2 전용 MERGE 로 전체 재계산하므로 H2 가 아닌 DB 에서는 TeamStatsTracker 의 SQL 을 바꾸기 전까지 끈다
+    @Bean
+    @ConditionalOnProperty(name = "member.team-stats.rebuild-on-startup", havingValue = "true", matchIfMissing = true)
+    public ApplicationRunner teamStatsRebuild(TeamStatsTracker tracker, PlatformTransactionManager transactionManager) {
+        return args -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> tracker.rebuild());
+    }
+}
@@ -1,16 +1,37 @@
 package com.study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberCursor;
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberAsyncRepository;
 import com.study.querydsl.repository.MemberJpaRepository;
 import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.MemberSearchCoalescer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 @RestController
@@ -18,19 +39,102 @@ import java.util.List;
 public class MemberController {
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberSearchCoalescer memberSearchCoalescer;
+    private final MemberAsyncRepository memberAsyncRepository;
+    private final MemberQueryGuard guard;
+    private final ObjectMapper objectMapper;
+
+    @Value("${member.export.fetch-size:500}")
+    private int exportFetchSize;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+        guard.checkSearch(condition);
+        return memberSearchCoalescer.search(condition); // 같은 조건 동시 요청은 쿼리 한번
+    }
+
+    /*
+     * /async 엔드포인트는 쿼리를 memberJdbcExecutor 에 넘기고 서블릿 스레드를 바로 반납한다
+     */
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(MemberSearchCondition condition){
+        guard.checkSearch(condition);
+        return memberAsyncRepository.searchWithTeamCache(condition);
+    }
+
+    @GetMapping("/v1/members/export")
+    public void exportMemberV1(MemberSearchCondition condition,
+                               @RequestParam(defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        guard.checkSearch(condition); // 타임아웃 없이 끝까지 읽으므로 /v1 과 같은 기준으로 막는다
+        MemberExportWriter.Format exportFormat = MemberExportWriter.Format.from(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        MemberExportWriter exportWriter = new MemberExportWriter(exportFormat, writer, objectMapper);
+        exportWriter.writeHeader();
+        memberJpaRepository.searchForEach(condition, exportFetchSize, exportWriter::write);
+        writer.flush();
     }
 
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.pagingSimple(condition,pageable);
+        return memberRepository.pagingSimple(condition,guard.checkPage(condition, pageable));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.pagingComplicate(condition,pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean approximate) {
+        Pageable checked = guard.checkPage(condition, pageable);
+        if (approximate) {
+            return memberRepository.pagingApproximate(condition, checked);
+        }
+        return memberRepository.pagingComplicate(condition,checked);
+    }
+
+    @GetMapping("/v3/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3Async(MemberSearchCondition condition, Pageable pageable,
+                                                                      @RequestParam(defaultValue = "false") boolean approximate) {
+        Pageable checked = guard.checkPage(condition, pageable);
+        if (approximate) {
+            return memberAsyncRepository.pagingApproximate(condition, checked);
+        }
+        return memberAsyncRepository.pagingComplicate(condition, checked);
+    }
+
+    @GetMapping("/v4/members")
+    public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        Slice<MemberTeamDto> slice = memberRepository.pagingKeyset(condition, MemberCursor.decode(cursor), guard.checkSize(size));
+        return MemberCursorPage.of(slice);
+    }
+
+    @GetMapping("/v4/members/async")
+    public CompletableFuture<MemberCursorPage> searchMemberV4Async(MemberSearchCondition condition,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "20") int size) {
+        return memberAsyncRepository.pagingKeyset(condition, MemberCursor.decode(cursor), guard.checkSize(size))
+                .thenApply(MemberCursorPage::of);
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> busy(TaskRejectedException e) {
+        return Map.of("message", "too many concurrent member queries, retry later");
+    }
+
+    @ExceptionHandler(QueryTimeoutException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> queryTimeout(QueryTimeoutException e) {
+        guard.recordTimeout();
+        return Map.of("message", "member query timed out - narrow the search condition");
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Map.of("message", e.getMessage());
     }
 }
@@ -0,0 +1,84 @@
+package com.study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/*
+ * 검색 결과를 한 줄씩 응답 스트림에 바로 쓴다 (NDJSON / CSV)
+ */
+class MemberExportWriter {
+    private final Format format;
+    private final Writer writer;
+    private final ObjectMapper objectMapper;
+
+    enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        static Format from(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("unsupported export format: " + value);
+        }
+    }
+
+    MemberExportWriter(Format format, Writer writer, ObjectMapper objectMapper) {
+        this.format = format;
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+    }
+
+    void writeHeader() throws IOException {
+        if (format == Format.CSV) {
+            writer.write("memberId,username,age,teamId,teamname\n");
+        }
+    }
+
+    void write(MemberTeamDto dto) {
+        try {
+            if (format == Format.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(dto));
+            } else {
+                writer.write(String.valueOf(dto.getMemberId()));
+                writer.write(',');
+                writer.write(csv(dto.getUsername()));
+                writer.write(',');
+                writer.write(String.valueOf(dto.getAge()));
+                writer.write(',');
+                writer.write(dto.getTeamId() == null ? "" : String.valueOf(dto.getTeamId()));
+                writer.write(',');
+                writer.write(csv(dto.getTeamname()));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
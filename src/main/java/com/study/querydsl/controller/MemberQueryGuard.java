@@ -0,0 +1,81 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberQueryMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/*
+ * 회원 검색 요청 비용 가드
+ * - 페이지 크기는 max-page-size 로 줄인다 (downgraded)
+ * - username 조건 없이 max-offset 보다 깊은 offset 은 거절 -> 커서 페이징(/v4) 안내 (rejected)
+ * - 인덱스로 좁힐 수 없는 목록 조회(/v1, 내보내기)는 전체 스캔이므로 거절 (rejected)
+ *   username, teamname, 또는 양쪽이 막힌 max-age-span 이하의 나이 범위만 선택적인 조건으로 본다 (ageGoe=0 만으로는 전체)
+ * 쿼리 자체의 시간 상한은 javax.persistence.query.timeout (application.yml)
+ * 거절은 IllegalArgumentException -> 400
+ */
+@Component
+class MemberQueryGuard {
+    private final int maxPageSize;
+    private final long maxOffset;
+    private final int maxAgeSpan;
+    private final MemberQueryMetrics metrics;
+
+    MemberQueryGuard(@Value("${member.guard.max-page-size:100}") int maxPageSize,
+                     @Value("${member.guard.max-offset:10000}") long maxOffset,
+                     @Value("${member.guard.max-age-span:20}") int maxAgeSpan,
+                     MemberQueryMetrics metrics) {
+        this.maxPageSize = maxPageSize;
+        this.maxOffset = maxOffset;
+        this.maxAgeSpan = maxAgeSpan;
+        this.metrics = metrics;
+    }
+
+    void checkSearch(MemberSearchCondition condition) {
+        if (!isSelective(condition)) {
+            reject("unfiltered", "username, teamname or an age range of at most " + maxAgeSpan
+                    + " (ageGoe and ageLoe) is required - use /v4/members to walk all members");
+        }
+    }
+
+    Pageable checkPage(MemberSearchCondition condition, Pageable pageable) {
+        Pageable checked = pageable;
+        if (pageable.getPageSize() > maxPageSize) {
+            metrics.recordGuard("downgraded", "page-size");
+            checked = PageRequest.of(pageable.getPageNumber(), maxPageSize, pageable.getSort());
+        }
+        // username 은 거의 유일해서 결과가 작다 - 그 외에는 offset 만큼 읽고 버리는 비용이 커진다
+        if (checked.getOffset() > maxOffset && !hasText(condition.getUsername())) {
+            reject("deep-offset", "offset " + checked.getOffset() + " exceeds " + maxOffset
+                    + " without a username filter - use /v4/members cursor paging");
+        }
+        return checked;
+    }
+
+    int checkSize(int size) {
+        if (size > maxPageSize) {
+            metrics.recordGuard("downgraded", "page-size");
+            return maxPageSize;
+        }
+        return size;
+    }
+
+    void recordTimeout() {
+        metrics.recordGuard("timeout", "query-timeout");
+    }
+
+    private void reject(String reason, String message) {
+        metrics.recordGuard("rejected", reason);
+        throw new IllegalArgumentException(message);
+    }
+
+    private boolean isSelective(MemberSearchCondition condition) {
+        return hasText(condition.getUsername()) || hasText(condition.getTeamname())
+                || (condition.getAgeGoe() != null && condition.getAgeLoe() != null
+                && (long) condition.getAgeLoe() - condition.getAgeGoe() <= maxAgeSpan);
+    }
+}
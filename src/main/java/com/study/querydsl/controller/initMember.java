@@ -2,40 +2,70 @@ package com.study.querydsl.controller;
 
 import com.study.querydsl.entity.Member;
 import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.support.MemberDataGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
+/*
+ * member.seed.members 를 주면 MemberDataGenerator 로 대량 데이터를 만든다
+ * ex) --member.seed.members=3000000 --member.seed.teams=2000
+ */
 @Profile("local")
 @Component
-@RequiredArgsConstructor
 public class initMember {
     private final InitMemberService initMemberService;
+    private final MemberDataGenerator generator;
+    private final int seedMembers;
+    private final int seedTeams;
+    private final double teamSkew;
+    private final int batchSize;
+
+    public initMember(InitMemberService initMemberService, MemberDataGenerator generator,
+                      @Value("${member.seed.members:0}") int seedMembers,
+                      @Value("${member.seed.teams:1000}") int seedTeams,
+                      @Value("${member.seed.team-skew:1.0}") double teamSkew,
+                      @Value("${member.seed.batch-size:1000}") int batchSize) {
+        this.initMemberService = initMemberService;
+        this.generator = generator;
+        this.seedMembers = seedMembers;
+        this.seedTeams = seedTeams;
+        this.teamSkew = teamSkew;
+        this.batchSize = batchSize;
+    }
 
     @PostConstruct
     public void init(){
+        if (seedMembers > 0) {
+            generator.generate(seedMembers, seedTeams, teamSkew, batchSize, 42L);
+            return;
+        }
         initMemberService.init();
     }
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
+        private final MemberJpaRepository memberJpaRepository;
 
         @Transactional
         public void init(){
             Team teamA = new Team("teamA");
             Team teamB = new Team("teamB");
 
+            List<Member> members = new ArrayList<>();
             for (int i = 0; i< 100; i++) {
                 Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i,selectedTeam));
+                members.add(new Member("member"+i, i,selectedTeam));
             }
+            memberJpaRepository.saveAllInBatch(members, 50);
         }
     }
 }
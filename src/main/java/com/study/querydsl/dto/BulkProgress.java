@@ -0,0 +1,25 @@
+package com.study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * 청크 단위 벌크 연산 진행 상황 (MemberBulkOperations)
+ */
+@Getter
+@ToString
+public class BulkProgress {
+    private final int chunk;         // 1 부터
+    private final long firstId;      // 이번 청크의 id 범위
+    private final long lastId;
+    private final long affected;     // 이번 청크에서 바뀐 행 수
+    private final long totalAffected;
+
+    public BulkProgress(int chunk, long firstId, long lastId, long affected, long totalAffected) {
+        this.chunk = chunk;
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.affected = affected;
+        this.totalAffected = totalAffected;
+    }
+}
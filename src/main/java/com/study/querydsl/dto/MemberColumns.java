@@ -0,0 +1,126 @@
+package com.study.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * 대량 조회(분석용 export) 결과를 행 객체 대신 컬럼 배열로 담는다
+ * id, age 는 primitive 배열, username/teamname 은 사전(dictionary) 인코딩해서 같은 문자열은 한번만 들고 있는다
+ * 행 하나당 long 2개 + int 3개 (+ 새 문자열) 라서 MemberTeamDto + 박싱된 Long/Integer 보다 훨씬 작다
+ */
+public class MemberColumns {
+    private static final int NULL_CODE = -1;
+
+    private long[] memberIds;
+    private int[] ages;
+    private int[] usernameCodes;
+    private long[] teamIds;
+    private final BitSet noTeam = new BitSet();
+    private int[] teamnameCodes;
+    private int size;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    public MemberColumns(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        memberIds = new long[capacity];
+        ages = new int[capacity];
+        usernameCodes = new int[capacity];
+        teamIds = new long[capacity];
+        teamnameCodes = new int[capacity];
+    }
+
+    public void add(long memberId, String username, int age, Long teamId, String teamname) {
+        if (size == memberIds.length) {
+            resize(Math.max(size * 2, 16));
+        }
+        memberIds[size] = memberId;
+        ages[size] = age;
+        usernameCodes[size] = encode(username);
+        if (teamId == null) {
+            noTeam.set(size);
+        } else {
+            teamIds[size] = teamId;
+        }
+        teamnameCodes[size] = encode(teamname);
+        size++;
+    }
+
+    // 다 채운 뒤 남는 배열 공간을 정리하고 사전용 맵을 버린다
+    public MemberColumns trimToSize() {
+        resize(size);
+        codes.clear();
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getMemberId(int row) {
+        checkRow(row);
+        return memberIds[row];
+    }
+
+    public String getUsername(int row) {
+        checkRow(row);
+        return decode(usernameCodes[row]);
+    }
+
+    public int getAge(int row) {
+        checkRow(row);
+        return ages[row];
+    }
+
+    public Long getTeamId(int row) {
+        checkRow(row);
+        return noTeam.get(row) ? null : teamIds[row];
+    }
+
+    public String getTeamname(int row) {
+        checkRow(row);
+        return decode(teamnameCodes[row]);
+    }
+
+    // 서로 다른 username + teamname 수
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    public MemberTeamDto toDto(int row) {
+        return new MemberTeamDto(getMemberId(row), getUsername(row), getAge(row), getTeamId(row), getTeamname(row));
+    }
+
+    private int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        return codes.computeIfAbsent(value, key -> {
+            dictionary.add(key);
+            return dictionary.size() - 1;
+        });
+    }
+
+    private String decode(int code) {
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    private void resize(int capacity) {
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+        teamIds = Arrays.copyOf(teamIds, capacity);
+        teamnameCodes = Arrays.copyOf(teamnameCodes, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.study.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+@Getter
+public class MemberCursorPage {
+    private final List<MemberTeamDto> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String next; // 다음 페이지 토큰, 마지막 페이지면 null
+
+    public MemberCursorPage(List<MemberTeamDto> content, int size, boolean hasNext, String next) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.next = next;
+    }
+
+    public static MemberCursorPage of(Slice<MemberTeamDto> slice) {
+        List<MemberTeamDto> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+                ? MemberCursor.of(content.get(content.size() - 1)).encode()
+                : null;
+        return new MemberCursorPage(content, slice.getSize(), slice.hasNext(), next);
+    }
+}
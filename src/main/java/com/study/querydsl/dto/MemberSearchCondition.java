@@ -2,10 +2,24 @@ package com.study.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
     private String username;
     private String teamname;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    /*
+     * 캐시 키 등으로 쓰기 위한 복사본 - 빈 문자열은 조건 없음(null)과 같게 취급한다
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setTeamname(hasText(teamname) ? teamname : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
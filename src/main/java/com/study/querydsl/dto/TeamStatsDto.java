@@ -0,0 +1,30 @@
+package com.study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class TeamStatsDto {
+    private Long teamId;
+    private String teamname;
+    private long memberCount;
+    private long ageSum;
+    private int ageMin;
+    private int ageMax;
+
+    @QueryProjection
+    public TeamStatsDto(Long teamId, String teamname, long memberCount, long ageSum, int ageMin, int ageMax) {
+        this.teamId = teamId;
+        this.teamname = teamname;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+
+    public double getAgeAvg() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+}
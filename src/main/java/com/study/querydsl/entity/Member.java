@@ -5,11 +5,19 @@ import lombok.*;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        // age 범위 검색 + (age, id) 키셋 정렬, MemberTeamDto 의 member 컬럼을 모두 담아서 테이블을 안 읽는다 (covering)
+        @Index(name = "idx_member_age_covering", columnList = "age, member_id, team_id, username")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username","age"}) // 무한루프탈수도있어서 연관관계는 하지 않는다
 public class Member {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50) // 50개씩 미리 할당 (pooled)
     @Column(name="member_id")
     private Long id;
     private String username;
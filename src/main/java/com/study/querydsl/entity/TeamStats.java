@@ -0,0 +1,28 @@
+package com.study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/*
+ * 팀별 회원 통계 읽기 모델 - TeamStatsTracker 가 회원 변경 때마다 같은 트랜잭션 안에서 갱신한다
+ * 회원이 없는 팀은 행이 없다
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private int ageMin;
+    private int ageMax;
+}
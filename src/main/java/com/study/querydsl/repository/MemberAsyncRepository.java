@@ -0,0 +1,61 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberCursor;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/*
+ * MemberRepositoryCustom 검색/페이징의 CompletableFuture 버전
+ * memberJdbcExecutor 스레드에서 리포지토리 프록시를 호출하므로 트랜잭션(readOnly)과 지표는 그 스레드에서 걸린다
+ * 호출한 쪽 트랜잭션과는 별개라서 커밋 안된 변경은 보이지 않는다
+ * 풀과 큐가 가득 차면 TaskRejectedException 을 바로 던진다
+ */
+@Component
+public class MemberAsyncRepository {
+    private final MemberRepository memberRepository;
+    private final AsyncTaskExecutor executor;
+
+    public MemberAsyncRepository(MemberRepository memberRepository,
+                                 @Qualifier("memberJdbcExecutor") AsyncTaskExecutor executor) {
+        this.memberRepository = memberRepository;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        return supply(() -> memberRepository.search(condition));
+    }
+
+    public CompletableFuture<List<MemberTeamDto>> searchWithTeamCache(MemberSearchCondition condition) {
+        return supply(() -> memberRepository.searchWithTeamCache(condition));
+    }
+
+    public CompletableFuture<Page<MemberTeamDto>> pagingComplicate(MemberSearchCondition condition, Pageable pageable) {
+        return supply(() -> memberRepository.pagingComplicate(condition, pageable));
+    }
+
+    public CompletableFuture<Page<MemberTeamDto>> paingOptimize(MemberSearchCondition condition, Pageable pageable) {
+        return supply(() -> memberRepository.paingOptimize(condition, pageable));
+    }
+
+    public CompletableFuture<Page<MemberTeamDto>> pagingApproximate(MemberSearchCondition condition, Pageable pageable) {
+        return supply(() -> memberRepository.pagingApproximate(condition, pageable));
+    }
+
+    public CompletableFuture<Slice<MemberTeamDto>> pagingKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        return supply(() -> memberRepository.pagingKeyset(condition, cursor, size));
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+}
@@ -0,0 +1,134 @@
+package com.study.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/*
+ * 회원 전체(조건) 배치 처리 - 청크를 여러 워커가 나눠서 처리한다
+ * - 호출 스레드가 별도 EntityManager 로 id 만 scroll(FORWARD_ONLY) 해서 chunkSize 개씩 청크를 만든다 (id 만 읽으므로 엔티티가 쌓이지 않음)
+ * - 워커는 청크마다 새 트랜잭션에서 회원(+팀)을 읽어 processor 에 넘기고 커밋한다 - 바꾼 값은 커밋 때 반영
+ * - 처리 대기 청크는 workers * 2 개까지만 쌓이므로 건수와 상관없이 메모리 사용량이 일정하다
+ * - 청크가 하나라도 실패하면 더 읽지 않고, 대기 중인 청크도 건너뛴 뒤 그 예외를 던진다 (이미 커밋된 청크는 그대로)
+ * 커넥션을 workers + 1 개 쓰므로 커넥션 풀보다 작게 잡는다
+ */
+@Component
+public class MemberBatchProcessor {
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+    private final int defaultWorkers;
+    private final int fetchSize;
+
+    public MemberBatchProcessor(EntityManagerFactory emf, EntityManager em, PlatformTransactionManager transactionManager,
+                                @Value("${member.batch.chunk-size:500}") int defaultChunkSize,
+                                @Value("${member.batch.workers:4}") int defaultWorkers,
+                                @Value("${member.batch.fetch-size:1000}") int fetchSize) {
+        this.emf = emf;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultWorkers = defaultWorkers;
+        this.fetchSize = fetchSize;
+    }
+
+    public long process(Predicate condition, Consumer<List<Member>> processor) {
+        return process(condition, defaultChunkSize, defaultWorkers, processor);
+    }
+
+    /*
+     * ex) process(member.age.goe(20), 500, 4, members -> members.forEach(m -> m.setAge(m.getAge() + 1)))
+     * condition 은 member 기준 경로로 쓴다 (id 조회에 조인이 없으므로 team 대신 member.team.name)
+     * 반환값은 처리한 회원 수
+     */
+    public long process(Predicate condition, int chunkSize, int workers, Consumer<List<Member>> processor) {
+        if (chunkSize <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("chunkSize and workers must be positive: " + chunkSize + ", " + workers);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("member-batch-"));
+        int maxPending = workers * 2;
+        Semaphore pending = new Semaphore(maxPending);
+        AtomicLong processed = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        EntityManager scrollEm = emf.createEntityManager();
+        try (CloseableIterator<Long> ids = ScrollQueries.scroll(new JPAQueryFactory(scrollEm)
+                .select(member.id)
+                .from(member)
+                .where(condition)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.TIMEOUT_JPA, 0))) {
+            List<Long> chunk = new ArrayList<>(chunkSize);
+            while (ids.hasNext() && failure.get() == null) {
+                chunk.add(ids.next());
+                if (chunk.size() == chunkSize || !ids.hasNext()) {
+                    pending.acquireUninterruptibly();
+                    List<Long> chunkIds = chunk;
+                    executor.execute(() -> {
+                        try {
+                            if (failure.get() != null) {
+                                return; // 앞 청크가 실패했으면 대기 중이던 청크는 처리하지 않는다
+                            }
+                            processed.addAndGet(processChunk(chunkIds, processor));
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            pending.release();
+                        }
+                    });
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            pending.acquireUninterruptibly(maxPending); // 남은 청크가 끝날 때까지
+        } finally {
+            executor.shutdownNow();
+            scrollEm.close();
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return processed.get();
+    }
+
+    private int processChunk(List<Long> ids, Consumer<List<Member>> processor) {
+        Integer count = transactionTemplate.execute(status -> {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(member.id.in(ids))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            processor.accept(members);
+            return members.size(); // 그사이 지워진 회원은 빠진다
+        });
+        return count != null ? count : 0;
+    }
+}
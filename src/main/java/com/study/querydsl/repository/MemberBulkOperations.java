@@ -0,0 +1,188 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import com.study.querydsl.dto.BulkProgress;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/*
+ * 테이블 전체를 한번에 update/delete 하지 않고 id 순으로 chunkSize 건씩 나눠서 처리한다
+ * - 청크마다 트랜잭션을 커밋하므로 락이 짧고, 청크 사이에 pauseMillis 만큼 쉰다
+ * - 이미 트랜잭션 안에서 호출하면 그 트랜잭션에 참여한다 (커밋은 바깥 트랜잭션이 끝날 때)
+ * - 바뀐 회원은 영속성 컨텍스트에서 내리고 (팀은 그대로), 관련 팀 통계(TeamStats)는 청크마다 다시 계산한다
+ * - condition 은 member 와 team(member.team left join) 경로를 쓸 수 있다 - ex) team.name.eq("teamA")
+ */
+@Component
+public class MemberBulkOperations {
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberCountCache countCache;
+    private final ObjectProvider<MemberSearchIndex> searchIndex;
+    private final ObjectProvider<TeamStatsTracker> teamStats;
+    private final int defaultChunkSize;
+    private final long defaultPauseMillis;
+
+    public MemberBulkOperations(EntityManager em, PlatformTransactionManager transactionManager,
+                                MemberCountCache countCache, ObjectProvider<MemberSearchIndex> searchIndex,
+                                ObjectProvider<TeamStatsTracker> teamStats,
+                                @Value("${member.bulk.chunk-size:1000}") int defaultChunkSize,
+                                @Value("${member.bulk.pause-millis:0}") long defaultPauseMillis) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.teamStats = teamStats;
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultPauseMillis = defaultPauseMillis;
+    }
+
+    public long update(Predicate condition, Consumer<JPAUpdateClause> setter, Consumer<BulkProgress> listener) {
+        return update(condition, setter, defaultChunkSize, defaultPauseMillis, listener);
+    }
+
+    /*
+     * ex) update(member.age.lt(28), u -> u.set(member.age, member.age.add(1)), 1000, 50, p -> log.info("{}", p))
+     */
+    public long update(Predicate condition, Consumer<JPAUpdateClause> setter,
+                       int chunkSize, long pauseMillis, Consumer<BulkProgress> listener) {
+        return inChunks(condition, chunkSize, pauseMillis, listener, ids -> {
+            JPAUpdateClause update = queryFactory.update(member);
+            setter.accept(update);
+            return update
+                    .where(member.id.in(ids))
+                    .execute();
+        });
+    }
+
+    public long delete(Predicate condition, Consumer<BulkProgress> listener) {
+        return delete(condition, defaultChunkSize, defaultPauseMillis, listener);
+    }
+
+    public long delete(Predicate condition, int chunkSize, long pauseMillis, Consumer<BulkProgress> listener) {
+        return inChunks(condition, chunkSize, pauseMillis, listener, ids -> queryFactory
+                .delete(member)
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    private long inChunks(Predicate condition, int chunkSize, long pauseMillis,
+                          Consumer<BulkProgress> listener, ChunkStatement statement) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+
+        long lastId = 0;
+        long total = 0;
+        int chunk = 0;
+        while (true) {
+            long afterId = lastId;
+            BulkProgress progress = transactionTemplate.execute(status -> {
+                // id 키셋으로 다음 청크 대상을 고른다 - 조건 컬럼을 바꾸는 update 여도 같은 행을 다시 처리하지 않는다
+                List<Long> ids = queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .leftJoin(member.team, team) // team.name 같은 조건용, 다대일이라 id 가 중복되지 않는다
+                        .where(member.id.gt(afterId), condition)
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                if (ids.isEmpty()) {
+                    return null;
+                }
+
+                Set<Long> teamIds = affectedTeams(ids);
+                long affected = statement.execute(ids);
+                teamIds.addAll(affectedTeams(ids)); // update 로 팀이 바뀌었으면 새 팀도
+                evict(ids);
+                searchIndex.ifAvailable(MemberSearchIndex::invalidate); // 커밋 후 다시 적재
+                teamStats.ifAvailable(stats -> stats.recompute(teamIds));
+                return new BulkProgress(0, ids.get(0), ids.get(ids.size() - 1), affected, 0);
+            });
+            if (progress == null) {
+                break;
+            }
+
+            countCache.invalidateAll(); // 청크가 커밋될 때마다 카운트가 바뀐다
+            lastId = progress.getLastId();
+            total += progress.getAffected();
+            listener.accept(new BulkProgress(++chunk, progress.getFirstId(), lastId, progress.getAffected(), total));
+
+            if (pauseMillis > 0 && !pause(pauseMillis)) {
+                break; // 인터럽트되면 여기까지만 하고 멈춘다
+            }
+        }
+        return total;
+    }
+
+    /*
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 em.clear() 대신 바뀐 회원만 detach 한다
+     * team 이 cascade ALL 이라 그냥 detach 하면 같은 팀의 다른 회원이 보고 있는 Team 까지 떨어진다
+     * -> cascade 가 따라갈 team 을 비워둔 채로 내리고 다시 채운다 (벌크 statement 전에 auto flush 됐고, 내린 뒤라 flush 되지 않음)
+     * Member 는 2차 캐시 대상이 아니고, 쿼리 캐시는 벌크 statement 가 member 테이블 타임스탬프를 올려서 무효화된다
+     */
+    private void evict(List<Long> ids) {
+        Set<Long> idSet = new HashSet<>(ids);
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Member> changed = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member && idSet.contains(entry.getValue().getId())) {
+                changed.add((Member) entry.getKey());
+            }
+        }
+
+        for (Member m : changed) {
+            Team team = m.getTeam();
+            m.setTeam(null);
+            em.detach(m);
+            m.setTeam(team);
+        }
+    }
+
+    private Set<Long> affectedTeams(List<Long> ids) {
+        if (teamStats.getIfAvailable() == null) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(queryFactory
+                .select(member.team.id)
+                .distinct()
+                .from(member)
+                .where(member.id.in(ids), member.team.isNotNull())
+                .fetch());
+    }
+
+    private static boolean pause(long pauseMillis) {
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private interface ChunkStatement {
+        long execute(List<Long> ids);
+    }
+}
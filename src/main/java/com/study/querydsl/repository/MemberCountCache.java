@@ -0,0 +1,117 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+ * 검색 조건별 카운트 쿼리 결과 캐시
+ * TTL 이 지나거나 member 가 저장/벌크 수정되면 다시 센다. ttl-millis 가 0 이하면 캐시하지 않는다.
+ */
+@Component
+public class MemberCountCache {
+    private final long ttlMillis;
+    private final Map<MemberSearchCondition, CachedCount> counts;
+    private long generation; // invalidateAll 마다 증가, 무효화 도중 계산된 값은 저장하지 않기 위함
+
+    public MemberCountCache(@Value("${member.count-cache.ttl-millis:10000}") long ttlMillis,
+                            @Value("${member.count-cache.max-size:1000}") int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.counts = new LinkedHashMap<>(16, 0.75f, true) { // access order -> LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemberSearchCondition, CachedCount> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public long count(MemberSearchCondition condition, LongSupplier counter) {
+        if (ttlMillis <= 0) {
+            return counter.getAsLong();
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        long startGeneration;
+        synchronized (counts) {
+            CachedCount cached = counts.get(key);
+            if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+                return cached.value;
+            }
+            startGeneration = generation;
+        }
+
+        long value = counter.getAsLong(); // 락 밖에서 쿼리
+        synchronized (counts) {
+            if (startGeneration == generation) {
+                counts.put(key, new CachedCount(value, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    /*
+     * 다른 경로에서 정확히 센 값을 넣어둔다
+     */
+    public void put(MemberSearchCondition condition, long value) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        synchronized (counts) {
+            counts.put(condition.normalized(), new CachedCount(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /*
+     * 정확한 값이 필요 없는 페이저용 - 만료된 값이라도 있으면 돌려준다
+     */
+    public Long countIfPresent(MemberSearchCondition condition) {
+        synchronized (counts) {
+            CachedCount cached = counts.get(condition.normalized());
+            return cached != null ? cached.value : null;
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (counts) {
+            generation++;
+            counts.clear();
+        }
+    }
+
+    /*
+     * 트랜잭션 안의 변경은 커밋된 뒤에 비운다
+     * 커밋 전에 비우면 그 사이 다른 트랜잭션이 커밋 전 데이터로 센 값이 다시 캐시된다
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidateAll();
+                }
+            });
+        } else {
+            invalidateAll();
+        }
+    }
+
+    private static class CachedCount {
+        private final long value;
+        private final long expiresAt;
+
+        private CachedCount(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -1,35 +1,127 @@
 package com.study.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.dto.QMemberTeamDto;
 import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.study.querydsl.entity.QMember.member;
 import static com.study.querydsl.entity.QTeam.team;
 import static org.springframework.util.StringUtils.hasText;
-import static org.springframework.util.StringUtils.isEmpty;
 
 @Repository
+@Transactional(readOnly = true) // 조회는 레플리카로 (ReplicationDataSource), 쓰기 메서드만 따로 @Transactional
 public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final ObjectProvider<MemberSearchIndex> searchIndex;
+    private final ObjectProvider<TeamStatsTracker> teamStats;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, MemberCountCache countCache, ObjectProvider<MemberSearchIndex> searchIndex,
+                               ObjectProvider<TeamStatsTracker> teamStats) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.teamStats = teamStats;
     }
 
+    @Transactional
     public void save(Member member){
         em.persist(member);
+        countCache.invalidateAfterCommit();
+    }
+
+    @Transactional
+    public long bulkAgePlus(int ageLt, int plus){
+        List<Long> teamIds = affectedTeams(member.age.lt(ageLt));
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(plus))
+                .where(member.age.lt(ageLt))
+                .execute();
+        em.clear(); // 벌크연산은 영속성 컨텍스트를 무시하므로 비워준다
+        countCache.invalidateAfterCommit();
+        searchIndex.ifAvailable(MemberSearchIndex::invalidate); // 엔티티 이벤트가 없으므로 다시 적재
+        teamStats.ifAvailable(stats -> stats.recompute(teamIds));
+        return count;
+    }
+
+    @Transactional
+    public long bulkDeleteByAgeGt(int ageGt){
+        List<Long> teamIds = affectedTeams(member.age.gt(ageGt));
+        long count = queryFactory
+                .delete(member)
+                .where(member.age.gt(ageGt))
+                .execute();
+        em.clear();
+        countCache.invalidateAfterCommit();
+        searchIndex.ifAvailable(MemberSearchIndex::invalidate);
+        teamStats.ifAvailable(stats -> stats.recompute(teamIds));
+        return count;
+    }
+
+    // 벌크 연산 대상 회원들의 팀 - 연산 후 이 팀들의 통계만 다시 계산한다
+    private List<Long> affectedTeams(Predicate condition) {
+        if (teamStats.getIfAvailable() == null) {
+            return Collections.emptyList();
+        }
+        return queryFactory
+                .select(member.team.id)
+                .distinct()
+                .from(member)
+                .where(condition, member.team.isNotNull())
+                .fetch();
+    }
+
+    /*
+     * 대량 적재용 - batchSize 단위로 JDBC batch insert 후 flush/clear
+     * 끝나면 영속성 컨텍스트가 비워지므로 넘긴 엔티티들은 준영속 상태가 된다
+     */
+    @Transactional
+    public long saveAllInBatch(Iterable<Member> members, int batchSize){
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+
+        long count = 0;
+        try {
+            for (Member m : members) {
+                Team team = m.getTeam();
+                if (team != null && team.getId() != null && !em.contains(team)) {
+                    // clear 로 준영속이 된 팀은 cascade persist 가 안되므로 프록시로 다시 연결
+                    m.setTeam(em.getReference(Team.class, team.getId()));
+                }
+                em.persist(m);
+                if (++count % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+            countCache.invalidateAfterCommit();
+        }
+        return count;
     }
 
     public Optional<Member> findById(Long id){
@@ -105,28 +197,70 @@ public class MemberJpaRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teanameEq(condition.getTeamname()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                        )
+                .where(MemberSearchQueries.where(condition))
                 .fetch();
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    // 조건 조합별로 미리 만들어 둔 JPQL 에 값만 바인딩 (MemberSearchTemplates)
+    public List<MemberTeamDto> searchByTemplate(MemberSearchCondition condition) {
+        return MemberSearchTemplates.createQuery(em, condition)
+                .getResultList();
     }
 
-    private BooleanExpression teanameEq(String teamname) {
-        return hasText(teamname) ? team.name.eq(teamname) : null;
+    /*
+     * 결과를 리스트로 모으지 않고 한건씩 넘겨준다 (hibernate scroll, FORWARD_ONLY)
+     * fetchSize 건마다 영속성 컨텍스트를 비워서 결과 크기와 상관없이 메모리 사용량을 일정하게 유지
+     */
+    public long searchForEach(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> action) {
+        long count = 0;
+        try (CloseableIterator<MemberTeamDto> iterator = ScrollQueries.scroll(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamname")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchQueries.where(condition))
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.TIMEOUT_JPA, 0))) { // 전체 내보내기는 기본 쿼리 타임아웃에서 제외
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++count % fetchSize == 0) {
+                    em.clear();
+                }
+            }
+        }
+        return count;
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return isEmpty(username) ? null : member.username.eq(username);
+    /*
+     * 배치용 회원 엔티티 순회 - findAll 처럼 리스트로 모으지 않고 scroll(FORWARD_ONLY) 로 한건씩 넘긴다
+     * action 에서 바꾼 값은 fetchSize 건마다 flush 후 clear 되므로 건수와 상관없이 메모리 사용량이 일정하다
+     * (clear 이후에는 이전에 넘겨받은 엔티티가 준영속이므로 붙잡아 두지 않는다)
+     */
+    @Transactional
+    public long forEachMember(Predicate condition, int fetchSize, Consumer<Member> action) {
+        long count = 0;
+        try (CloseableIterator<Member> iterator = ScrollQueries.scroll(queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin() // 건마다 팀 프록시 초기화(N+1) 방지
+                .where(condition)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.TIMEOUT_JPA, 0))) { // 배치는 기본 쿼리 타임아웃에서 제외
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++count % fetchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
     }
 }
@@ -0,0 +1,115 @@
+package com.study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+ * 리포지토리 쿼리 지표 (/actuator/metrics 로 노출)
+ * member.query       - 메서드 전체 지연시간 (p50/p99/p999 + 히스토그램), outcome=success/error/timeout, exception=예외 클래스(없으면 none)
+ * member.query.count - 그 중 카운트 쿼리 시간
+ * member.query.rows  - 반환 건수 (성공한 호출만)
+ * member.guard       - 비싼 요청 차단/축소/타임아웃 (action=rejected/downgraded/timeout, reason)
+ * member.search.coalescing - 동일 검색 합치기 결과 (outcome=query/coalesced/cached), 적중률 = (coalesced+cached)/전체
+ * method 태그는 "클래스.메서드" (MemberJpaRepository.search 와 MemberRepositoryImpl.search 구분)
+ * member.metrics.enabled=false 면 아무것도 기록하지 않는다
+ */
+@Component
+public class MemberQueryMetrics {
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Map<String, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> countTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalescingCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> guardCounters = new ConcurrentHashMap<>();
+
+    public MemberQueryMetrics(MeterRegistry registry, @Value("${member.metrics.enabled:true}") boolean enabled) {
+        this.registry = registry;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordQuery(String method, long elapsedNanos, long rows, Throwable failure) {
+        if (!enabled) {
+            return;
+        }
+        String outcome = outcome(failure);
+        String exception = failure != null ? failure.getClass().getSimpleName() : "none";
+        queryTimers.computeIfAbsent(method + ":" + outcome + ":" + exception,
+                key -> timer("member.query", "method", method, "outcome", outcome, "exception", exception))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            rowSummaries.computeIfAbsent(method, m -> DistributionSummary.builder("member.query.rows")
+                    .tag("method", m)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry))
+                    .record(rows);
+        }
+    }
+
+    public long timeCount(String method, LongSupplier counter) {
+        if (!enabled) {
+            return counter.getAsLong();
+        }
+        long start = System.nanoTime();
+        try {
+            return counter.getAsLong();
+        } finally {
+            countTimers.computeIfAbsent(method, m -> timer("member.query.count", "method", m))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordCoalescing(String outcome) {
+        if (!enabled) {
+            return;
+        }
+        coalescingCounters.computeIfAbsent(outcome, o -> Counter.builder("member.search.coalescing")
+                .tag("outcome", o)
+                .register(registry))
+                .increment();
+    }
+
+    public void recordGuard(String action, String reason) {
+        if (!enabled) {
+            return;
+        }
+        guardCounters.computeIfAbsent(action + ":" + reason, key -> Counter.builder("member.guard")
+                .tag("action", action)
+                .tag("reason", reason)
+                .register(registry))
+                .increment();
+    }
+
+    // 번역 전(JPA)이든 후(Spring)든 쿼리 타임아웃은 따로 센다
+    private static String outcome(Throwable failure) {
+        if (failure == null) {
+            return "success";
+        }
+        if (failure instanceof QueryTimeoutException || failure instanceof javax.persistence.QueryTimeoutException) {
+            return "timeout";
+        }
+        return "error";
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,62 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberColumns;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/*
+ * MemberJpaRepository / MemberRepositoryImpl 쿼리 메서드 지연시간과 반환 건수 기록
+ * 건수는 결과 행을 돌려주는 메서드(Collection, Slice/Page, MemberColumns, Optional)만 센다
+ * 지표를 끄면 빈 자체가 안 만들어져서 프록시 오버헤드도 없다
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "member.metrics.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class MemberQueryMetricsAspect {
+    private final MemberQueryMetrics metrics;
+
+    @Around("execution(public * com.study.querydsl.repository.MemberJpaRepository.*(..))"
+            + " || (execution(* com.study.querydsl.repository.MemberRepositoryCustom.*(..))"
+            + " && target(com.study.querydsl.repository.MemberRepositoryImpl))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // 실패/타임아웃도 지연시간에 들어가야 p99 가 실제보다 좋게 보이지 않는다
+            String method = joinPoint.getTarget().getClass().getSimpleName() + "." + joinPoint.getSignature().getName();
+            metrics.recordQuery(method, System.nanoTime() - start, failure == null ? rows(result) : -1, failure);
+        }
+    }
+
+    private long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) { // Page 포함
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberColumns) {
+            return ((MemberColumns) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1; // void, 벌크 update/delete 건수(long) 등 - 조회 건수 분포에 섞지 않는다
+    }
+}
@@ -1,16 +1,34 @@
 package com.study.querydsl.repository;
 
+import com.study.querydsl.dto.MemberColumns;
+import com.study.querydsl.dto.MemberCursor;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    // team 조인 없이 팀 이름을 2차 캐시에서 채운다
+    List<MemberTeamDto> searchWithTeamCache(MemberSearchCondition condition);
+
     Page<MemberTeamDto> pagingSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> pagingComplicate(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> paingOptimize(MemberSearchCondition condition, Pageable pageable);
+
+    // 카운트 쿼리를 별도 커넥션에서 컨텐츠 쿼리와 동시에 실행 - 제한 시간 안에 못 세면 total 은 하한 (hasNext 는 정확)
+    Page<MemberTeamDto> pagingParallel(MemberSearchCondition condition, Pageable pageable);
+
+    // UI 페이저용 - 캐시된(만료 포함) 카운트나 상한까지 센 근사 카운트를 total 로 쓴다
+    Page<MemberTeamDto> pagingApproximate(MemberSearchCondition condition, Pageable pageable);
+
+    // offset 없이 (age, memberId) 커서 이후만 조회 - 페이지 깊이와 무관하게 비용 일정
+    Slice<MemberTeamDto> pagingKeyset(MemberSearchCondition condition, MemberCursor cursor, int size);
+
+    // 분석용 대량 조회 - ResultSet 에서 바로 컬럼 배열로 채운다 (행마다 DTO/Tuple 을 만들지 않음)
+    MemberColumns searchColumns(MemberSearchCondition condition);
 }
@@ -1,52 +1,99 @@
 package com.study.querydsl.repository;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberColumns;
+import com.study.querydsl.dto.MemberCursor;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.dto.QMemberTeamDto;
-import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.study.querydsl.entity.QMember.member;
 import static com.study.querydsl.entity.QTeam.team;
 
 
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements  MemberRepositoryCustom{
+    private static final int APPROXIMATE_COUNT_LIMIT = 1000;
+    private static final int COLUMNS_FETCH_SIZE = 1000;
+    private static final int TEAM_IN_LIMIT = 1000; // in 절 하나에 넣는 팀 id 수
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final EntityManagerFactory emf;
+    private final MemberCountCache countCache;
+    private final AsyncTaskExecutor countExecutor;
+    private final long countTimeoutMillis;
+    private final MemberQueryMetrics metrics;
+    private final ObjectProvider<MemberSearchIndex> searchIndex;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache,
+                                @Qualifier("memberCountExecutor") AsyncTaskExecutor countExecutor,
+                                @Value("${member.paging.count-timeout-millis:500}") long countTimeoutMillis,
+                                MemberQueryMetrics metrics, ObjectProvider<MemberSearchIndex> searchIndex) {
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.emf = em.getEntityManagerFactory();
+        this.countCache = countCache;
+        this.countExecutor = countExecutor;
+        this.countTimeoutMillis = countTimeoutMillis;
+        this.metrics = metrics;
+        this.searchIndex = searchIndex;
     }
 
-    public BooleanExpression usernameEq(String username){
-        return StringUtils.isEmpty(username) ? null : member.username.eq(username);
-    }
-
-    public BooleanExpression teamnameEq(String teamname) {
-        return StringUtils.isEmpty(teamname) ? null : team.name.eq(teamname);
-    }
-
-    public BooleanExpression ageLoe(Integer age){
-        return age != null ? member.age.loe(age) : null;
-    }
-
-    public BooleanExpression ageGoe(Integer age) {
-        return age != null ? member.age.goe(age) : null;
+    public BooleanExpression afterCursor(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return member.age.gt(cursor.getAge())
+                .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-       return queryFactory
+        List<MemberTeamDto> indexed = searchIndex(condition);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        JPAQuery<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -54,20 +101,106 @@ public class MemberRepositoryImpl implements  MemberRepositoryCustom{
                         team.id.as("teamId"),
                         team.name.as("teamname")
                 ))
+                .from(member);
+        return MemberSearchQueries.joinTeam(content, condition)
+                .where(MemberSearchQueries.where(condition))
+                .fetch();
+    }
+
+    /*
+     * team 조인 없이 member.team_id 만 읽고 팀 이름은 2차 캐시에서 채운다
+     * teamname 조건도 쿼리 캐시로 team id 를 먼저 찾아서 member.team.id in (...) 으로 바꾼다
+     */
+    @Override
+    public List<MemberTeamDto> searchWithTeamCache(MemberSearchCondition condition) {
+        List<MemberTeamDto> indexed = searchIndex(condition);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        List<Long> teamIds = null;
+        if (StringUtils.hasText(condition.getTeamname())) {
+            teamIds = queryFactory
+                    .select(team.id)
+                    .from(team)
+                    .where(team.name.eq(condition.getTeamname()))
+                    .setHint(QueryHints.CACHEABLE, true)
+                    .fetch();
+            if (teamIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Tuple> rows = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
                 .from(member)
                 .where(
-                        usernameEq(condition.getUsername()),
-                        ageLoe(condition.getAgeLoe()),
-                        ageGoe(condition.getAgeGoe())
+                        MemberSearchQueries.usernameEq(condition.getUsername()),
+                        teamIds != null ? member.team.id.in(teamIds) : null, // team.name 대신
+                        MemberSearchQueries.ageLoe(condition.getAgeLoe()),
+                        MemberSearchQueries.ageGoe(condition.getAgeGoe())
                 )
-                .leftJoin(member.team, team)
                 .fetch();
 
+        Set<Long> rowTeamIds = new HashSet<>();
+        for (Tuple row : rows) {
+            if (row.get(member.team.id) != null) {
+                rowTeamIds.add(row.get(member.team.id));
+            }
+        }
+        Map<Long, String> teamnames = findTeamnames(rowTeamIds);
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Long teamId = row.get(member.team.id);
+            String teamname = teamId == null ? null : teamnames.get(teamId);
+            result.add(new MemberTeamDto(row.get(member.id), row.get(member.username), row.get(member.age), teamId, teamname));
+        }
+        return result;
+    }
+
+    /*
+     * 메모리 인덱스가 켜져 있으면 먼저 찾아본다
+     * 인덱스는 커밋된 데이터만 알기 때문에 쓰기 트랜잭션 안에서는 쓰지 않는다
+     */
+    private List<MemberTeamDto> searchIndex(MemberSearchCondition condition) {
+        MemberSearchIndex index = searchIndex.getIfAvailable();
+        if (index == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        return index.search(condition);
+    }
+
+    /*
+     * 2차 캐시에 있는 팀은 em.find (쿼리 안나감), 없는 팀만 모아서 in 쿼리로 한번에 읽는다
+     * 쿼리로 읽은 팀도 2차 캐시에 들어가므로 다음 검색부터는 hit (Team 리전 크기는 ehcache.xml)
+     */
+    private Map<Long, String> findTeamnames(Set<Long> teamIds) {
+        Map<Long, String> teamnames = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        Cache cache = emf.getCache();
+        for (Long teamId : teamIds) {
+            if (cache.contains(Team.class, teamId)) {
+                Team found = em.find(Team.class, teamId);
+                if (found != null) {
+                    teamnames.put(teamId, found.getName());
+                }
+            } else {
+                missing.add(teamId);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += TEAM_IN_LIMIT) {
+            List<Team> found = queryFactory
+                    .selectFrom(team)
+                    .where(team.id.in(missing.subList(from, Math.min(from + TEAM_IN_LIMIT, missing.size()))))
+                    .fetch();
+            found.forEach(t -> teamnames.put(t.getId(), t.getName()));
+        }
+        return teamnames;
     }
 
     @Override
     public Page<MemberTeamDto> pagingComplicate(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> fetch = queryFactory
+        JPAQuery<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -75,34 +208,20 @@ public class MemberRepositoryImpl implements  MemberRepositoryCustom{
                         team.id.as("teamId"),
                         team.name.as("teamname")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamnameEq(condition.getTeamname()),
-                        ageLoe(condition.getAgeLoe()),
-                        ageGoe(condition.getAgeGoe())
-                )
+                .from(member);
+        List<MemberTeamDto> fetch = MemberSearchQueries.joinTeam(content, condition)
+                .where(MemberSearchQueries.where(condition))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        long count = queryFactory
-                .select(member)
-                .from(member)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamnameEq(condition.getTeamname()),
-                        ageLoe(condition.getAgeLoe()),
-                        ageGoe(condition.getAgeGoe())
-                )
-                .fetchCount();
+        long count = countCache.count(condition, () -> count("MemberRepositoryImpl.pagingComplicate", queryFactory, condition));
         return new PageImpl<>(fetch, pageable, count);
     }
 
     @Override
     public Page<MemberTeamDto> paingOptimize(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> fetch = queryFactory
+        JPAQuery<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -110,33 +229,142 @@ public class MemberRepositoryImpl implements  MemberRepositoryCustom{
                         team.id.as("teamId"),
                         team.name.as("teamname")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamnameEq(condition.getTeamname()),
-                        ageLoe(condition.getAgeLoe()),
-                        ageGoe(condition.getAgeGoe())
-                )
+                .from(member);
+        List<MemberTeamDto> fetch = MemberSearchQueries.joinTeam(content, condition)
+                .where(MemberSearchQueries.where(condition))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Member> query = queryFactory
-                .select(member)
-                .from(member)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamnameEq(condition.getTeamname()),
-                        ageLoe(condition.getAgeLoe()),
-                        ageGoe(condition.getAgeGoe())
-                ); // 쿼리 조립만
-        return PageableExecutionUtils.getPage(fetch, pageable,()->query.fetchCount()); // 카운트 쿼리가 필요하면 날리고 아니면 안날림
+        JPAQuery<Long> query = MemberSearchQueries.countQuery(queryFactory, condition); // 쿼리 조립만
+        return PageableExecutionUtils.getPage(fetch, pageable,()->countCache.count(condition, () -> metrics.timeCount("MemberRepositoryImpl.paingOptimize", query::fetchOne))); // 카운트 쿼리가 필요하면 날리고 아니면 안날림
+    }
+
+    @Override
+    public Page<MemberTeamDto> pagingParallel(MemberSearchCondition condition, Pageable pageable) {
+        Future<Long> countFuture = submitCount(condition); // 컨텐츠 쿼리보다 먼저 던져둔다
+
+        JPAQuery<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamname")
+                ))
+                .from(member);
+        List<MemberTeamDto> fetch = MemberSearchQueries.joinTeam(content, condition)
+                .where(MemberSearchQueries.where(condition))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        AtomicBoolean countNeeded = new AtomicBoolean();
+        try {
+            return PageableExecutionUtils.getPage(fetch, pageable, () -> {
+                countNeeded.set(true);
+                return awaitCount(countFuture, condition, pageable, fetch.size());
+            });
+        } finally {
+            if (countFuture != null && !countNeeded.get()) {
+                // 카운트가 필요 없었던 경우 - 아직 대기 중이면 빼고, 이미 실행 중이면 끝까지 세서 캐시에 남긴다
+                // (interrupt 로는 JDBC 쿼리가 멈추지 않고 커넥션만 애매한 상태가 된다)
+                countFuture.cancel(false);
+            }
+        }
+    }
+
+    /*
+     * 별도 EntityManager(커넥션)에서 카운트 - 커밋 안된 변경은 안보이므로 쓰기 트랜잭션 안에서는 동기로 센다
+     */
+    private Future<Long> submitCount(MemberSearchCondition condition) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        try {
+            return countExecutor.submit(() -> countCache.count(condition, () -> {
+                EntityManager countEm = emf.createEntityManager();
+                try {
+                    return count("MemberRepositoryImpl.pagingParallel", new JPAQueryFactory(countEm), condition);
+                } finally {
+                    countEm.close();
+                }
+            }));
+        } catch (TaskRejectedException e) {
+            return null;
+        }
+    }
+
+    /*
+     * 카운트가 countTimeoutMillis 안에 안끝나거나 실패하면 다시 세지 않는다 (느린 쿼리를 한번 더 날리는 셈이므로)
+     * 대신 Slice 처럼 "지금 페이지까지 + 꽉 찼으면 한건 더" 를 total 로 돌려준다 - hasNext 는 맞고 전체 건수는 하한
+     * 백그라운드 카운트는 계속 돌아서 countCache 를 채우므로 다음 요청부터는 정확한 값
+     */
+    private long awaitCount(Future<Long> countFuture, MemberSearchCondition condition, Pageable pageable, int fetched) {
+        if (countFuture == null) {
+            return countCache.count(condition, () -> count("MemberRepositoryImpl.pagingParallel", queryFactory, condition));
+        }
+        try {
+            return countFuture.get(countTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // 아래 하한으로
+        }
+        return pageable.getOffset() + fetched + (fetched == pageable.getPageSize() ? 1 : 0);
+    }
+
+    private long count(String method, JPAQueryFactory factory, MemberSearchCondition condition) {
+        return metrics.timeCount(method, () -> MemberSearchQueries.count(factory, condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> pagingApproximate(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamname")
+                ))
+                .from(member);
+        List<MemberTeamDto> fetch = MemberSearchQueries.joinTeam(content, condition)
+                .where(MemberSearchQueries.where(condition))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return PageableExecutionUtils.getPage(fetch, pageable, () -> {
+            Long cached = countCache.countIfPresent(condition); // 만료된 값이어도 사용
+            if (cached != null) {
+                return cached;
+            }
+            // 캐시에 없으면 상한 + 1 건까지만 세고 멈춘다 ("1000+" 표시용)
+            // 상한은 적어도 지금 페이지 끝 + 1 - 고정 상한이면 그보다 깊은 페이지에서 PageImpl 이 total 을 잘라서 hasNext 가 false 가 된다
+            long limit = Math.max(APPROXIMATE_COUNT_LIMIT, pageable.getOffset() + pageable.getPageSize()) + 1;
+            JPAQuery<Long> ids = queryFactory
+                    .select(member.id)
+                    .from(member);
+            if (MemberSearchQueries.needsTeamJoin(condition)) {
+                ids.join(member.team, team);
+            }
+            long counted = metrics.timeCount("MemberRepositoryImpl.pagingApproximate", () -> ids
+                    .where(MemberSearchQueries.where(condition))
+                    .limit(limit)
+                    .fetch()
+                    .size());
+            if (counted < limit) {
+                countCache.put(condition, counted); // 상한 전에 끝났으면 정확한 값이므로 다른 페이징에서도 쓴다
+            }
+            return counted;
+        });
     }
 
     @Override
     public Page<MemberTeamDto> pagingSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        JPAQuery<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -144,21 +372,95 @@ public class MemberRepositoryImpl implements  MemberRepositoryCustom{
                         team.id.as("teamId"),
                         team.name.as("teamname")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamnameEq(condition.getTeamname()),
-                        ageLoe(condition.getAgeLoe()),
-                        ageGoe(condition.getAgeGoe())
-                )
+                .from(member);
+        List<MemberTeamDto> results = MemberSearchQueries.joinTeam(content, condition)
+                .where(MemberSearchQueries.where(condition))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetchResults();
+                .fetch();
+
+        // fetchResults() 는 카운트를 매번 다시 세므로 다른 페이징과 같은 카운트 캐시를 쓴다
+        long total = countCache.count(condition, () -> count("MemberRepositoryImpl.pagingSimple", queryFactory, condition));
 
-        List<MemberTeamDto> results1 = results.getResults();
-        long total = results.getTotal();
+        return new PageImpl<>(results, pageable, total);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> pagingKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamname")
+                ))
+                .from(member);
+        List<MemberTeamDto> fetch = MemberSearchQueries.joinTeam(query, condition)
+                .where(MemberSearchQueries.where(condition))
+                .where(afterCursor(cursor))
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(size + 1) // 한건 더 읽어서 다음 페이지 존재 여부 판단 (카운트 쿼리 없음)
+                .fetch();
+
+        boolean hasNext = fetch.size() > size;
+        List<MemberTeamDto> content = hasNext ? fetch.subList(0, size) : fetch;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    /*
+     * JPQL 을 거치면 행마다 Object[] + 박싱이 생기므로 같은 커넥션에서 SQL 을 직접 실행해서 배열에 바로 담는다
+     */
+    @Override
+    public MemberColumns searchColumns(MemberSearchCondition condition) {
+        List<Object> params = new ArrayList<>();
+        String sql = columnsSql(condition, params);
+
+        em.flush(); // 네이티브 SQL 이므로 자동 flush 가 안된다
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                statement.setFetchSize(COLUMNS_FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    MemberColumns columns = new MemberColumns(COLUMNS_FETCH_SIZE);
+                    while (rs.next()) {
+                        long teamId = rs.getLong(4);
+                        Long nullableTeamId = rs.wasNull() ? null : teamId; // wasNull 은 바로 앞에 읽은 컬럼 기준
+                        columns.add(rs.getLong(1), rs.getString(2), rs.getInt(3), nullableTeamId, rs.getString(5));
+                    }
+                    return columns.trimToSize();
+                }
+            }
+        });
+    }
 
-        return new PageImpl<>(results1,pageable, total);
+    // searchColumns SQL - 바인딩할 값은 params 에 순서대로 담는다 (MemberQueryPlanTest 에서 계획 확인용으로도 쓴다)
+    static String columnsSql(MemberSearchCondition condition, List<Object> params) {
+        StringBuilder sql = new StringBuilder("select m.member_id, m.username, m.age, t.id, t.name from member m")
+                .append(MemberSearchQueries.needsTeamJoin(condition) ? " join" : " left join") // joinTeam 과 같은 이유
+                .append(" team t on m.team_id = t.id where 1 = 1");
+        if (StringUtils.hasText(condition.getUsername())) {
+            sql.append(" and m.username = ?");
+            params.add(condition.getUsername());
+        }
+        if (StringUtils.hasText(condition.getTeamname())) {
+            sql.append(" and t.name = ?");
+            params.add(condition.getTeamname());
+        }
+        if (condition.getAgeGoe() != null) {
+            sql.append(" and m.age >= ?");
+            params.add(condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            sql.append(" and m.age <= ?");
+            params.add(condition.getAgeLoe());
+        }
+        return sql.append(" order by m.member_id").toString();
     }
 }
@@ -0,0 +1,126 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ * MemberRepository.searchWithTeamCache (/v1 경로 - team 조인 없이 2차 캐시로 팀 이름, 메모리 인덱스) 앞단의 single-flight
+ * 같은 조건(normalized)의 검색이 동시에 들어오면 먼저 온 요청만 쿼리하고 나머지는 그 결과를 같이 받는다
+ * (normalized 는 검색 조건과 같은 규칙 - 공백뿐인 문자열은 조건 없음 - 이라 같은 키면 결과도 같다)
+ * cache-ttl-millis 가 0 보다 크면 끝난 결과도 그 시간 동안 재사용한다 (그 사이 변경은 안보일 수 있음)
+ * 결과 리스트는 여러 요청이 공유하므로 수정할 수 없다
+ */
+@Component
+public class MemberSearchCoalescer {
+    private final Function<MemberSearchCondition, List<MemberTeamDto>> loader;
+    private final long cacheTtlMillis;
+    private final int cacheMaxSize;
+    private final MemberQueryMetrics metrics;
+    private final Map<MemberSearchCondition, CompletableFuture<List<MemberTeamDto>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<MemberSearchCondition, CachedResult> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MemberSearchCoalescer(MemberRepository memberRepository,
+                                 @Value("${member.search-coalescing.cache-ttl-millis:0}") long cacheTtlMillis,
+                                 @Value("${member.search-coalescing.cache-max-size:1000}") int cacheMaxSize,
+                                 MemberQueryMetrics metrics) {
+        this(memberRepository::searchWithTeamCache, cacheTtlMillis, cacheMaxSize, metrics);
+    }
+
+    MemberSearchCoalescer(Function<MemberSearchCondition, List<MemberTeamDto>> loader,
+                          long cacheTtlMillis, int cacheMaxSize, MemberQueryMetrics metrics) {
+        this.loader = loader;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cacheMaxSize = cacheMaxSize;
+        this.metrics = metrics;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        // 쓰기 트랜잭션 안이면 커밋 안된 변경이 보여야 하므로 합치지 않는다
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.apply(condition);
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        CachedResult cached = cache.get(key);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            metrics.recordCoalescing("cached");
+            return cached.value;
+        }
+
+        CompletableFuture<List<MemberTeamDto>> flight = new CompletableFuture<>();
+        CompletableFuture<List<MemberTeamDto>> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            metrics.recordCoalescing("coalesced");
+            return await(existing);
+        }
+
+        metrics.recordCoalescing("query");
+        try {
+            List<MemberTeamDto> result = Collections.unmodifiableList(loader.apply(condition)); // 키는 합치기용, 조회는 받은 조건 그대로
+            putCache(key, result);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e); // 기다리던 요청도 같은 예외
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private void putCache(MemberSearchCondition key, List<MemberTeamDto> result) {
+        if (cacheTtlMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (cache.size() >= cacheMaxSize) {
+            cache.values().removeIf(entry -> entry.isExpired(now));
+            if (cache.size() >= cacheMaxSize) {
+                cache.clear(); // TTL 이 짧으므로 전부 비워도 금방 다시 찬다
+            }
+        }
+        cache.put(key, new CachedResult(result, now + cacheTtlMillis));
+    }
+
+    private static List<MemberTeamDto> await(CompletableFuture<List<MemberTeamDto>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class CachedResult {
+        private final List<MemberTeamDto> value;
+        private final long expiresAt;
+
+        private CachedResult(List<MemberTeamDto> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
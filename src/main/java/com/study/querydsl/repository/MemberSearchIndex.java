@@ -0,0 +1,446 @@
+package com.study.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/*
+ * 회원 검색용 메모리 인덱스 (member.search-index.enabled)
+ * 회원마다 slot 번호를 주고 username 해시, age 트리, team id 별로 slot 집합(SlotSet)을 들고 있다가 AND 로 찾는다
+ * 커밋된 엔티티 이벤트로 갱신하고(MemberSearchIndexConfig), 벌크 연산처럼 이벤트가 없는 변경은 invalidate -> 전체 재적재
+ * 적재 전이거나 무효화된 동안, 조건이 하나도 없을 때는 null 을 돌려주고 호출한 쪽이 DB 로 조회한다
+ */
+@Slf4j
+public class MemberSearchIndex implements Closeable {
+    private final Consumer<Loader> source;
+    private final ExecutorService rebuilder;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // lock 으로 보호
+    private Snapshot data = new Snapshot();
+    private boolean ready;
+    private long generation;           // invalidate 마다 증가
+    private List<Consumer<Snapshot>> pending; // 재적재 중에 들어온 변경, 새 스냅샷에 다시 적용
+
+    public MemberSearchIndex(Consumer<Loader> source) {
+        this.source = source;
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public interface Loader {
+        void team(Long id, String name);
+
+        void member(Long id, String username, int age, Long teamId);
+    }
+
+    /*
+     * team, member 를 스트리밍으로 읽는다 - 별도 EntityManager 라서 커밋된 데이터만 보인다
+     */
+    public static Consumer<Loader> fromDatabase(EntityManagerFactory emf) {
+        return loader -> {
+            EntityManager loadEm = emf.createEntityManager();
+            try {
+                JPAQueryFactory factory = new JPAQueryFactory(loadEm);
+                for (Tuple row : factory.select(team.id, team.name).from(team).fetch()) {
+                    loader.team(row.get(team.id), row.get(team.name));
+                }
+                try (CloseableIterator<Tuple> rows = ScrollQueries.scroll(factory
+                        .select(member.id, member.username, member.age, member.team.id)
+                        .from(member))) {
+                    while (rows.hasNext()) {
+                        Tuple row = rows.next();
+                        loader.member(row.get(member.id), row.get(member.username), row.get(member.age), row.get(member.team.id));
+                    }
+                }
+            } finally {
+                loadEm.close();
+            }
+        };
+    }
+
+    /*
+     * 인덱스로 답할 수 없으면 null
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            return data.search(condition);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void memberSaved(Long id, String username, int age, Long teamId) {
+        apply(snapshot -> snapshot.member(id, username, age, teamId));
+    }
+
+    public void memberDeleted(Long id) {
+        apply(snapshot -> snapshot.removeMember(id));
+    }
+
+    public void teamSaved(Long id, String name) {
+        apply(snapshot -> snapshot.team(id, name));
+    }
+
+    public void teamDeleted(Long id) {
+        apply(snapshot -> snapshot.teamNames.remove(id));
+    }
+
+    /*
+     * 이벤트 없이 바뀐 경우 (벌크 update/delete) - 바로 DB 로 돌리고 커밋 후에 다시 적재한다
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            generation++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    scheduleRebuild();
+                }
+            });
+        } else {
+            scheduleRebuild();
+        }
+    }
+
+    public void scheduleInitialLoad() {
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("member search index rebuild failed, searching database until next invalidate", e);
+                }
+            });
+        }
+    }
+
+    void rebuild() {
+        long startGeneration;
+        lock.writeLock().lock();
+        try {
+            startGeneration = generation;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Snapshot loaded = new Snapshot();
+        source.accept(loaded); // 락 밖에서 적재
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(loaded));
+            pending = null;
+            if (startGeneration == generation) { // 적재 중에 다시 무효화됐으면 다음 재적재를 기다린다
+                data = loaded;
+                ready = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 테스트용 - slot 집합이 차지하는 바이트
+    long slotSetBytes() {
+        lock.readLock().lock();
+        try {
+            return data.slotSetBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Snapshot> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(data);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+    private static class Snapshot implements Loader {
+        private MemberEntry[] slots = new MemberEntry[1024];
+        private int slotCount;
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final Map<String, SlotSet> byUsername = new HashMap<>();
+        private final NavigableMap<Integer, SlotSet> byAge = new TreeMap<>();
+        private final Map<Long, SlotSet> byTeam = new HashMap<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+
+        @Override
+        public void team(Long id, String name) {
+            teamNames.put(id, name);
+        }
+
+        @Override
+        public void member(Long id, String username, int age, Long teamId) {
+            removeMember(id);
+            int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+            if (slot == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            slots[slot] = new MemberEntry(id, username, age, teamId);
+            slotById.put(id, slot);
+            byUsername.computeIfAbsent(username, key -> new SlotSet()).add(slot, slots.length);
+            byAge.computeIfAbsent(age, key -> new SlotSet()).add(slot, slots.length);
+            if (teamId != null) {
+                byTeam.computeIfAbsent(teamId, key -> new SlotSet()).add(slot, slots.length);
+            }
+        }
+
+        private void removeMember(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            MemberEntry entry = slots[slot];
+            remove(byUsername, entry.username, slot);
+            remove(byAge, entry.age, slot);
+            if (entry.teamId != null) {
+                remove(byTeam, entry.teamId, slot);
+            }
+            slots[slot] = null;
+            freeSlots.push(slot);
+        }
+
+        private static <K> void remove(Map<K, SlotSet> index, K key, int slot) {
+            SlotSet set = index.get(key);
+            set.remove(slot);
+            if (set.isEmpty()) {
+                index.remove(key);
+            }
+        }
+
+        private List<MemberTeamDto> search(MemberSearchCondition condition) {
+            int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int to = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            String teamname = StringUtils.hasText(condition.getTeamname()) ? condition.getTeamname() : null;
+
+            List<MemberTeamDto> result = new ArrayList<>();
+            if (StringUtils.hasText(condition.getUsername())) {
+                // username 은 거의 유일하므로 후보 몇 건을 직접 걸러낸다 (비트맵을 만들지 않음)
+                SlotSet candidates = byUsername.get(condition.getUsername());
+                if (candidates != null) {
+                    candidates.forEach(slot -> {
+                        MemberEntry entry = slots[slot];
+                        if (entry.age >= from && entry.age <= to
+                                && (teamname == null || (entry.teamId != null && teamname.equals(teamNames.get(entry.teamId))))) {
+                            result.add(toDto(entry));
+                        }
+                    });
+                }
+                result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+                return result;
+            }
+
+            BitSet matched = null;
+            if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+                matched = and(matched, from > to ? new BitSet() : union(byAge.subMap(from, true, to, true).values()));
+            }
+            if (teamname != null) {
+                List<SlotSet> teams = new ArrayList<>();
+                teamNames.forEach((teamId, name) -> {
+                    if (teamname.equals(name) && byTeam.containsKey(teamId)) {
+                        teams.add(byTeam.get(teamId));
+                    }
+                });
+                matched = and(matched, union(teams));
+            }
+            if (matched == null) {
+                return null; // 조건 없는 전체 조회는 인덱스가 할 일이 아니다
+            }
+
+            for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+                result.add(toDto(slots[slot]));
+            }
+            result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            return result;
+        }
+
+        private MemberTeamDto toDto(MemberEntry entry) {
+            String teamname = entry.teamId != null ? teamNames.get(entry.teamId) : null;
+            return new MemberTeamDto(entry.id, entry.username, entry.age, entry.teamId, teamname);
+        }
+
+        private static BitSet and(BitSet matched, BitSet bits) {
+            if (matched == null) {
+                return bits;
+            }
+            matched.and(bits);
+            return matched;
+        }
+
+        // 검색마다 새로 만드는 비트맵이라 인덱스 쪽은 건드리지 않는다
+        private static BitSet union(Collection<SlotSet> sets) {
+            BitSet union = new BitSet();
+            sets.forEach(set -> set.orInto(union));
+            return union;
+        }
+
+        // 인덱스가 차지하는 대략의 바이트 (slot 집합만, 엔티티/맵 오버헤드 제외)
+        private long slotSetBytes() {
+            long bytes = 0;
+            for (Map<?, SlotSet> index : Arrays.<Map<?, SlotSet>>asList(byUsername, byAge, byTeam)) {
+                for (SlotSet set : index.values()) {
+                    bytes += set.bytes();
+                }
+            }
+            return bytes;
+        }
+    }
+
+    /*
+     * slot 집합 - 작을 때는 int 배열, slot 용량의 1/32 을 넘으면 BitSet (그 지점부터 비트맵이 더 작다)
+     * 키마다 BitSet 을 쓰면 slot/64 워드씩 잡히므로 username 처럼 거의 유일한 키는 전체 O(N^2/64) 가 된다
+     * 이렇게 나누면 slot 데이터가 인덱스 하나에 회원당 8바이트 안쪽 (배열은 2배씩 늘고, 비트맵은 회원이 용량의 1/32 이상일 때만)
+     * 100만 건 기준 - slot 데이터는 username/age/team 합쳐 약 20MB, username 키마다 붙는 객체(SlotSet + int[1]) 약 50MB
+     * (키마다 BitSet 일 때는 username 만 100만 x 평균 50만 slot / 8 = 약 60GB)
+     */
+    private static class SlotSet {
+        private int[] sparse = new int[1];
+        private int size;
+        private BitSet dense;
+
+        private void add(int slot, int capacity) {
+            size++;
+            if (dense != null) {
+                dense.set(slot);
+                return;
+            }
+            if (size > capacity / 32) {
+                dense = new BitSet(capacity);
+                for (int i = 0; i < size - 1; i++) {
+                    dense.set(sparse[i]);
+                }
+                dense.set(slot);
+                sparse = null;
+                return;
+            }
+            if (size > sparse.length) {
+                sparse = Arrays.copyOf(sparse, sparse.length * 2);
+            }
+            sparse[size - 1] = slot;
+        }
+
+        private void remove(int slot) {
+            if (dense != null) {
+                if (dense.get(slot)) {
+                    dense.clear(slot);
+                    size--;
+                }
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (sparse[i] == slot) {
+                    sparse[i] = sparse[--size]; // 순서는 상관없다
+                    return;
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void orInto(BitSet target) {
+            if (dense != null) {
+                target.or(dense);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                target.set(sparse[i]);
+            }
+        }
+
+        private void forEach(IntConsumer action) {
+            if (dense != null) {
+                dense.stream().forEach(action);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                action.accept(sparse[i]);
+            }
+        }
+
+        private long bytes() {
+            return dense != null ? dense.size() / 8 : sparse.length * 4L;
+        }
+    }
+
+    private static class MemberEntry {
+        private final Long id;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+
+        private MemberEntry(Long id, String username, int age, Long teamId) {
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+        }
+    }
+}
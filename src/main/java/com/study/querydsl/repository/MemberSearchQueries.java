@@ -0,0 +1,75 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/*
+ * MemberSearchCondition -> 쿼리 조립
+ * 카운트 쿼리는 조건에 필요한 조인만 붙이고 엔티티 대신 count(member.id) 로 센다
+ * 공백뿐인 문자열은 조건 없음 - MemberSearchCondition.normalized() (카운트 캐시 키)와 같은 규칙
+ */
+final class MemberSearchQueries {
+
+    private MemberSearchQueries() {
+    }
+
+    static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    static BooleanExpression teamnameEq(String teamname) {
+        return hasText(teamname) ? team.name.eq(teamname) : null;
+    }
+
+    static BooleanExpression ageLoe(Integer age) {
+        return age != null ? member.age.loe(age) : null;
+    }
+
+    static BooleanExpression ageGoe(Integer age) {
+        return age != null ? member.age.goe(age) : null;
+    }
+
+    static Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamnameEq(condition.getTeamname()),
+                ageLoe(condition.getAgeLoe()),
+                ageGoe(condition.getAgeGoe())
+        };
+    }
+
+    // team 컬럼을 조건으로 쓸 때만 조인이 필요하다
+    static boolean needsTeamJoin(MemberSearchCondition condition) {
+        return teamnameEq(condition.getTeamname()) != null;
+    }
+
+    /*
+     * 컨텐츠 쿼리 team 조인 - teamname 조건이 있으면 inner join 으로 바꿔서 DB 가 team.name 인덱스부터 읽게 한다
+     * left join 이면 member 를 먼저 전부 읽고 나서 team.name 을 거른다 (full scan)
+     */
+    static <T> JPAQuery<T> joinTeam(JPAQuery<T> query, MemberSearchCondition condition) {
+        return needsTeamJoin(condition) ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
+    static JPAQuery<Long> countQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.id.count())
+                .from(member);
+        if (needsTeamJoin(condition)) {
+            query.join(member.team, team); // team.name = ? 이면 team 이 없는 member 는 어차피 빠지므로 inner join
+        }
+        return query.where(where(condition));
+    }
+
+    static long count(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        Long count = countQuery(queryFactory, condition).fetchOne();
+        return count != null ? count : 0L;
+    }
+}
@@ -0,0 +1,99 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/*
+ * MemberSearchCondition 의 4개 필드 유무 조합(16가지)별 JPQL 을 미리 만들어 둔다
+ * 요청마다 querydsl 식 트리 조립/직렬화 없이 값만 바인딩하고,
+ * 같은 문자열이므로 hibernate 쿼리 플랜 캐시에서 파싱 결과도 재사용된다
+ */
+final class MemberSearchTemplates {
+    private static final int USERNAME = 1;
+    private static final int TEAMNAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final String SELECT = "select new com.study.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)"
+            + " from Member m left join m.team t";
+
+    private static final String[] TEMPLATES = new String[16];
+
+    static {
+        for (int mask = 0; mask < TEMPLATES.length; mask++) {
+            TEMPLATES[mask] = compile(mask);
+        }
+    }
+
+    private MemberSearchTemplates() {
+    }
+
+    static TypedQuery<MemberTeamDto> createQuery(EntityManager em, MemberSearchCondition condition) {
+        int mask = mask(condition);
+        TypedQuery<MemberTeamDto> query = em.createQuery(TEMPLATES[mask], MemberTeamDto.class);
+        if ((mask & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((mask & TEAMNAME) != 0) {
+            query.setParameter("teamname", condition.getTeamname());
+        }
+        if ((mask & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((mask & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query;
+    }
+
+    // MemberSearchQueries 와 같은 기준으로 조건 유무를 판단한다 (공백뿐인 문자열은 조건 없음)
+    static int mask(MemberSearchCondition condition) {
+        int mask = 0;
+        if (hasText(condition.getUsername())) {
+            mask |= USERNAME;
+        }
+        if (hasText(condition.getTeamname())) {
+            mask |= TEAMNAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            mask |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            mask |= AGE_LOE;
+        }
+        return mask;
+    }
+
+    static String jpql(int mask) {
+        return TEMPLATES[mask];
+    }
+
+    private static String compile(int mask) {
+        StringBuilder where = new StringBuilder();
+        if ((mask & USERNAME) != 0) {
+            and(where, "m.username = :username");
+        }
+        if ((mask & TEAMNAME) != 0) {
+            and(where, "t.name = :teamname");
+        }
+        if ((mask & AGE_GOE) != 0) {
+            and(where, "m.age >= :ageGoe");
+        }
+        if ((mask & AGE_LOE) != 0) {
+            and(where, "m.age <= :ageLoe");
+        }
+        return where.length() == 0 ? SELECT : SELECT + " where " + where;
+    }
+
+    private static void and(StringBuilder where, String predicate) {
+        if (where.length() > 0) {
+            where.append(" and ");
+        }
+        where.append(predicate);
+    }
+}
@@ -0,0 +1,33 @@
+package com.study.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.jpa.ScrollableResultsIterator;
+import com.querydsl.jpa.TransformingIterator;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+
+/*
+ * JPAQuery 를 scroll(FORWARD_ONLY) 로 한건씩 읽는다
+ * querydsl 4.2 의 iterate() 는 hibernate 5.4 쿼리를 알아보지 못해 getResultList() 로 전부 읽은 뒤 넘기므로 대신 쓴다
+ * DTO/Tuple 프로젝션은 iterate() 와 같게 행마다 변환한다
+ */
+final class ScrollQueries {
+
+    private ScrollQueries() {
+    }
+
+    static <T> CloseableIterator<T> scroll(JPAQuery<T> query) {
+        Expression<?> projection = query.getMetadata().getProjection();
+        ScrollableResults results = query.createQuery()
+                .unwrap(org.hibernate.query.Query.class)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        if (projection instanceof FactoryExpression) {
+            CloseableIterator<T> rows = new ScrollableResultsIterator<>(results, true);
+            return new TransformingIterator<>(rows, rows, (FactoryExpression<?>) projection);
+        }
+        return new ScrollableResultsIterator<>(results);
+    }
+}
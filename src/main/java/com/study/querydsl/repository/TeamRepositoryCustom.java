@@ -0,0 +1,16 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.TeamMembersDto;
+import com.study.querydsl.dto.TeamStatsDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+    // 팀을 먼저 페이징하고 그 페이지 팀들의 회원을 in 쿼리 한번으로 채운다
+    Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable);
+
+    // 팀별 회원 수/나이 합계/최소/최대 - 회원을 다시 집계하지 않고 TeamStats 를 팀 수만큼 읽는다
+    List<TeamStatsDto> findTeamStats();
+}
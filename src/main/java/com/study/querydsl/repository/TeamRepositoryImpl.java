@@ -0,0 +1,87 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.QTeamStatsDto;
+import com.study.querydsl.dto.TeamMembersDto;
+import com.study.querydsl.dto.TeamStatsDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static com.study.querydsl.entity.QTeamStats.teamStats;
+
+@Transactional(readOnly = true)
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+    private final JPAQueryFactory queryFactory;
+
+    public TeamRepositoryImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    /*
+     * 컬렉션 fetch join + 페이징은 메모리에서 페이징(카테시안 곱)되므로
+     * 팀 페이지 -> 회원 in (...) 한번 -> 조립 순서로 쿼리 2번(+카운트)에 끝낸다
+     */
+    @Override
+    public Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Map<Long, TeamMembersDto> byTeamId = new LinkedHashMap<>();
+        for (Tuple row : teams) {
+            Long teamId = row.get(team.id);
+            byTeamId.put(teamId, new TeamMembersDto(teamId, row.get(team.name)));
+        }
+
+        if (!byTeamId.isEmpty()) {
+            List<Tuple> members = queryFactory
+                    .select(member.team.id, member.username, member.age)
+                    .from(member)
+                    .where(member.team.id.in(byTeamId.keySet()))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            for (Tuple row : members) {
+                byTeamId.get(row.get(member.team.id)).getMembers()
+                        .add(new MemberDto(row.get(member.username), row.get(member.age)));
+            }
+        }
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.id.count())
+                .from(team);
+        return PageableExecutionUtils.getPage(new ArrayList<>(byTeamId.values()), pageable, countQuery::fetchOne);
+    }
+
+    @Override
+    public List<TeamStatsDto> findTeamStats() {
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        teamStats.teamId,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.ageMin,
+                        teamStats.ageMax))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+}
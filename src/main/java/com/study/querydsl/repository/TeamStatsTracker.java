@@ -0,0 +1,270 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * TeamStats 증분 갱신
+ * - 회원 insert/update/delete 이벤트를 세션별로 모아두었다가 flush 가 끝날 때 같은 커넥션으로 반영
+ *   (트랜잭션 안에서 바로 보이고, 롤백되면 같이 롤백된다)
+ * - 팀별 (count, sum) 델타와 추가된 나이의 min/max, 빠진 나이의 min/max 를 모아 update 한번으로 더한다
+ *   빠진 나이가 저장된 min/max 와 같을 때만 (update 조건에서 걸러짐) 그 팀을 (team_id, age) 인덱스로 다시 계산
+ * - 다시 계산은 MERGE 라서 첫 회원을 동시에 넣는 트랜잭션끼리 PK 충돌이 나지 않는다
+ *   MERGE ... KEY 는 H2 전용 문법이라 다른 DB 로 옮기면 MERGE_STATS 를 그 DB 의 upsert 로 바꿔야 한다
+ * - 벌크 update/delete 는 이벤트가 없으므로 호출하는 쪽에서 recompute(teamIds) 를 부른다
+ * - 이벤트 밖에서 바뀐 데이터(JDBC 적재, 기능을 켜기 전 데이터)는 시작할 때 rebuild() 로 맞춘다 (TeamStatsConfig)
+ */
+public class TeamStatsTracker implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        FlushEventListener, AutoFlushEventListener {
+    private static final int IN_LIMIT = 1000;
+    // H2 전용 MERGE ... KEY - 행이 있으면 update, 없으면 insert (MySQL 은 insert ... on duplicate key update, PostgreSQL 은 on conflict)
+    private static final String MERGE_STATS = "merge into team_stats (team_id, member_count, age_sum, age_min, age_max) key (team_id)"
+            + " select team_id, count(*), sum(age), min(age), max(age) from member";
+    private static final String NO_MEMBERS = "not exists (select 1 from member m where m.team_id = team_stats.team_id)";
+
+    private final EntityManager em;
+    private final Map<SessionImplementor, Changes> pending = new ConcurrentHashMap<>();
+
+    public TeamStatsTracker(EntityManager em) {
+        this.em = em;
+    }
+
+    /*
+     * 현재 트랜잭션에서 teamIds 팀 통계를 member 테이블로부터 다시 계산
+     */
+    public void recompute(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        em.flush(); // 네이티브 SQL 이므로 자동 flush 가 안된다 (쌓인 델타도 여기서 먼저 반영)
+        em.unwrap(Session.class).doWork(connection -> recompute(connection, teamIds));
+    }
+
+    // 전체 재계산 - 트랜잭션 안에서 부른다
+    public void rebuild() {
+        em.flush();
+        em.unwrap(Session.class).doWork(TeamStatsTracker::rebuild);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member m = (Member) event.getEntity();
+            changes(event.getSession()).add(teamId(m.getTeam()), m.getAge());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Member m = (Member) event.getEntity();
+        Long teamId = teamId(m.getTeam());
+        Object[] oldState = event.getOldState();
+        if (oldState == null) { // 준영속 update - 이전 팀을 모르므로 전체 재계산
+            changes(event.getSession()).rebuild = true;
+            return;
+        }
+        Long oldTeamId = teamId((Team) oldState[propertyIndex(event.getPersister(), "team")]);
+        int oldAge = (Integer) oldState[propertyIndex(event.getPersister(), "age")];
+        if (Objects.equals(oldTeamId, teamId) && oldAge == m.getAge()) {
+            return; // username 만 바뀜
+        }
+        // 같은 팀 안의 나이 변경이면 count 는 그대로, sum 은 new - old
+        Changes changes = changes(event.getSession());
+        changes.remove(oldTeamId, oldAge);
+        changes.add(teamId, m.getAge());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] deletedState = event.getDeletedState();
+            Object team = deletedState[propertyIndex(event.getPersister(), "team")];
+            int age = (Integer) deletedState[propertyIndex(event.getPersister(), "age")];
+            changes(event.getSession()).remove(teamId((Team) team), age);
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).recompute.add((Long) event.getId());
+        }
+    }
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // flush 가 끝나면 (명시적 flush, 쿼리 전 자동 flush, 커밋 flush) 모아둔 변경을 같은 커넥션으로 반영
+    @Override
+    public void onFlush(FlushEvent event) {
+        apply(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        apply(event.getSession());
+    }
+
+    private void apply(EventSource session) {
+        Changes changes = pending.remove(session);
+        if (changes != null) {
+            session.doWork(changes::apply);
+        }
+    }
+
+    private Changes changes(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            // flush 가 예외로 끝나서 반영하지 못한 변경은 트랜잭션이 끝날 때 버린다 (롤백된다)
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) ->
+                    pending.remove(s));
+            return new Changes();
+        });
+    }
+
+    private static int propertyIndex(EntityPersister persister, String property) {
+        return persister.getEntityMetamodel().getPropertyIndex(property);
+    }
+
+    // 프록시를 초기화하지 않고 식별자만 꺼낸다
+    private static Long teamId(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+
+    private static void rebuild(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(MERGE_STATS + " where team_id is not null group by team_id");
+            statement.executeUpdate("delete from team_stats where " + NO_MEMBERS);
+        }
+    }
+
+    private static void recompute(Connection connection, Collection<Long> teamIds) throws SQLException {
+        List<Long> ids = new ArrayList<>(teamIds);
+        for (int from = 0; from < ids.size(); from += IN_LIMIT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_LIMIT, ids.size()));
+            StringJoiner in = new StringJoiner(",", "(", ")");
+            chunk.forEach(id -> in.add("?"));
+            try (PreparedStatement merge = connection.prepareStatement(MERGE_STATS + " where team_id in " + in + " group by team_id");
+                 PreparedStatement delete = connection.prepareStatement(
+                         "delete from team_stats where team_id in " + in + " and " + NO_MEMBERS)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    merge.setLong(i + 1, chunk.get(i));
+                    delete.setLong(i + 1, chunk.get(i));
+                }
+                merge.executeUpdate();
+                delete.executeUpdate(); // 회원이 없어진 팀
+            }
+        }
+    }
+
+    private static class Changes {
+        private static final int COUNT = 0, SUM = 1, ADDED_MIN = 2, ADDED_MAX = 3, REMOVED_MIN = 4, REMOVED_MAX = 5;
+
+        private final Map<Long, long[]> deltas = new HashMap<>();
+        private final Set<Long> recompute = new HashSet<>();
+        private boolean rebuild;
+
+        private void add(Long teamId, int age) {
+            if (teamId == null) {
+                return;
+            }
+            long[] delta = delta(teamId);
+            delta[COUNT]++;
+            delta[SUM] += age;
+            delta[ADDED_MIN] = Math.min(delta[ADDED_MIN], age);
+            delta[ADDED_MAX] = Math.max(delta[ADDED_MAX], age);
+        }
+
+        private void remove(Long teamId, int age) {
+            if (teamId == null) {
+                return;
+            }
+            long[] delta = delta(teamId);
+            delta[COUNT]--;
+            delta[SUM] -= age;
+            delta[REMOVED_MIN] = Math.min(delta[REMOVED_MIN], age);
+            delta[REMOVED_MAX] = Math.max(delta[REMOVED_MAX], age);
+        }
+
+        private long[] delta(Long teamId) {
+            return deltas.computeIfAbsent(teamId, id ->
+                    new long[]{0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE});
+        }
+
+        private void apply(Connection connection) throws SQLException {
+            if (rebuild) {
+                TeamStatsTracker.rebuild(connection);
+                return;
+            }
+
+            Set<Long> recompute = new HashSet<>(this.recompute);
+            List<Long> updated = new ArrayList<>();
+            // 빠진 나이가 모두 (min, max) 안쪽이어야 min/max 가 그대로다 - 아니면 0 건 update -> 다시 계산
+            try (PreparedStatement update = connection.prepareStatement(
+                    "update team_stats set member_count = member_count + ?, age_sum = age_sum + ?,"
+                            + " age_min = least(age_min, ?), age_max = greatest(age_max, ?)"
+                            + " where team_id = ? and age_min < ? and age_max > ?")) {
+                for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+                    if (recompute.contains(entry.getKey())) {
+                        continue;
+                    }
+                    long[] delta = entry.getValue();
+                    update.setLong(1, delta[COUNT]);
+                    update.setLong(2, delta[SUM]);
+                    update.setInt(3, (int) delta[ADDED_MIN]);
+                    update.setInt(4, (int) delta[ADDED_MAX]);
+                    update.setLong(5, entry.getKey());
+                    update.setInt(6, (int) delta[REMOVED_MIN]);
+                    update.setInt(7, (int) delta[REMOVED_MAX]);
+                    update.addBatch();
+                    updated.add(entry.getKey());
+                }
+                int[] counts = updated.isEmpty() ? new int[0] : update.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        recompute.add(updated.get(i)); // 처음 회원이 생긴 팀, 또는 min/max 였던 나이가 빠진 팀
+                    }
+                }
+            }
+            if (!recompute.isEmpty()) {
+                TeamStatsTracker.recompute(connection, recompute);
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.study.querydsl.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * Projections.bean / fields / constructor 대신 쓰는 DTO 프로젝션
+ * 생성자, setter 를 LambdaMetafactory 로 람다로 만들어 두고 행마다 바로 호출한다 (행마다 리플렉션 X)
+ * 람다 생성은 비싸므로 (DTO 타입, 인자 타입) 별로 한번만 만들어서 캐시한다
+ *
+ * ex) select(LambdaProjections.constructor(MemberTeamDto.class, member.id, member.username, member.age, team.id, team.name))
+ *     select(LambdaProjections.bean(UserDto.class, member.username.as("name"), member.age))
+ */
+public final class LambdaProjections {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<String, Function<Object[], ?>> FACTORIES = new ConcurrentHashMap<>();
+
+    // null 을 primitive 생성자 파라미터에 넘길 때 쓰는 기본값
+    private static final Map<Class<?>, Object> DEFAULTS = Map.of(
+            boolean.class, false, char.class, '\0', byte.class, (byte) 0, short.class, (short) 0,
+            int.class, 0, long.class, 0L, float.class, 0f, double.class, 0d);
+
+    // 언박싱 후 허용되는 확장 변환 (JLS 5.1.2)
+    private static final Map<Class<?>, List<Class<?>>> WIDENING = Map.of(
+            byte.class, List.of(short.class, int.class, long.class, float.class, double.class),
+            short.class, List.of(int.class, long.class, float.class, double.class),
+            char.class, List.of(int.class, long.class, float.class, double.class),
+            int.class, List.of(long.class, float.class, double.class),
+            long.class, List.of(float.class, double.class),
+            float.class, List.of(double.class));
+
+    private LambdaProjections() {
+    }
+
+    /*
+     * 인자 타입에 맞는 public 생성자를 찾아 호출 (Projections.constructor, @QueryProjection 대체)
+     */
+    public static <T> FactoryExpressionBase<T> constructor(Class<? extends T> type, Expression<?>... args) {
+        Class<?>[] argTypes = Arrays.stream(args).map(Expression::getType).toArray(Class<?>[]::new);
+        Function<Object[], ?> factory = FACTORIES.computeIfAbsent(key("new", type, argTypes, null),
+                key -> constructorFactory(type, argTypes));
+        return new LambdaFactoryExpression<>(type, args, factory);
+    }
+
+    /*
+     * 기본 생성자 + setter (Projections.bean / fields 대체) - 프로퍼티 이름은 path 이름이나 alias
+     * null 값은 Projections.bean 처럼 건너뛴다
+     */
+    public static <T> FactoryExpressionBase<T> bean(Class<? extends T> type, Expression<?>... args) {
+        Class<?>[] argTypes = Arrays.stream(args).map(Expression::getType).toArray(Class<?>[]::new);
+        String[] properties = Arrays.stream(args).map(LambdaProjections::propertyName).toArray(String[]::new);
+        Function<Object[], ?> factory = FACTORIES.computeIfAbsent(key("bean", type, argTypes, properties),
+                key -> beanFactory(type, properties, argTypes));
+        return new LambdaFactoryExpression<>(type, args, factory);
+    }
+
+    private static Function<Object[], ?> constructorFactory(Class<?> type, Class<?>[] argTypes) {
+        Constructor<?> constructor = Arrays.stream(type.getConstructors())
+                .filter(candidate -> isAssignable(candidate.getParameterTypes(), argTypes))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "no public constructor " + type.getSimpleName() + Arrays.toString(argTypes)));
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        try {
+            Object creator = lambda(LOOKUP.unreflectConstructor(constructor), creatorInterface(parameterTypes.length),
+                    MethodType.methodType(type, instantiatedTypes(parameterTypes, argTypes)));
+            Object[] defaults = primitiveDefaults(parameterTypes);
+            return spread(creator, parameterTypes.length, defaults);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("cannot create projection for " + type.getName(), e);
+        }
+    }
+
+    private static Function<Object[], ?> beanFactory(Class<?> type, String[] properties, Class<?>[] argTypes) {
+        try {
+            @SuppressWarnings("unchecked")
+            Supplier<Object> instantiator = (Supplier<Object>) lambda(
+                    LOOKUP.unreflectConstructor(type.getConstructor()), Supplier.class, MethodType.methodType(type));
+
+            Setter[] setters = new Setter[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                Method setter = findSetter(type, properties[i], argTypes[i]);
+                setters[i] = (Setter) lambda(LOOKUP.unreflect(setter), Setter.class,
+                        MethodType.methodType(void.class, type, instantiatedType(setter.getParameterTypes()[0], argTypes[i])));
+            }
+
+            return row -> {
+                Object bean = instantiator.get();
+                for (int i = 0; i < setters.length; i++) {
+                    if (row[i] != null) {
+                        setters[i].set(bean, row[i]);
+                    }
+                }
+                return bean;
+            };
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("cannot create projection for " + type.getName(), e);
+        }
+    }
+
+    /*
+     * implementation 을 functional interface 구현체로 만든다 - sam 메서드 시그니처는 Object 로 지우고
+     * instantiated 타입으로 캐스팅/언박싱/확장 변환을 metafactory 가 넣어준다
+     */
+    private static Object lambda(MethodHandle implementation, Class<?> functionalInterface, MethodType instantiated)
+            throws ReflectiveOperationException {
+        Method sam = Arrays.stream(functionalInterface.getMethods())
+                .filter(method -> Modifier.isAbstract(method.getModifiers()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, sam.getName(),
+                    MethodType.methodType(functionalInterface),
+                    MethodType.methodType(sam.getReturnType(), sam.getParameterTypes()),
+                    implementation, instantiated);
+            return site.getTarget().invoke();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) { // LambdaConversionException - 타입 변환이 불가능한 경우
+            throw new IllegalArgumentException("cannot adapt " + implementation + " to " + instantiated, e);
+        }
+    }
+
+    private static Function<Object[], ?> spread(Object creator, int arity, Object[] defaults) {
+        switch (arity) {
+            case 0:
+                return row -> ((New0) creator).create();
+            case 1:
+                return row -> ((New1) creator).create(arg(row, 0, defaults));
+            case 2:
+                return row -> ((New2) creator).create(arg(row, 0, defaults), arg(row, 1, defaults));
+            case 3:
+                return row -> ((New3) creator).create(arg(row, 0, defaults), arg(row, 1, defaults), arg(row, 2, defaults));
+            case 4:
+                return row -> ((New4) creator).create(arg(row, 0, defaults), arg(row, 1, defaults), arg(row, 2, defaults),
+                        arg(row, 3, defaults));
+            case 5:
+                return row -> ((New5) creator).create(arg(row, 0, defaults), arg(row, 1, defaults), arg(row, 2, defaults),
+                        arg(row, 3, defaults), arg(row, 4, defaults));
+            case 6:
+                return row -> ((New6) creator).create(arg(row, 0, defaults), arg(row, 1, defaults), arg(row, 2, defaults),
+                        arg(row, 3, defaults), arg(row, 4, defaults), arg(row, 5, defaults));
+            default:
+                throw new IllegalStateException("unsupported arity " + arity);
+        }
+    }
+
+    // null 을 primitive 파라미터에 넘기면 기본값 (Projections.constructor 와 같게)
+    private static Object arg(Object[] row, int index, Object[] defaults) {
+        Object value = row[index];
+        return value != null ? value : defaults[index];
+    }
+
+    private static Class<?> creatorInterface(int arity) {
+        switch (arity) {
+            case 0: return New0.class;
+            case 1: return New1.class;
+            case 2: return New2.class;
+            case 3: return New3.class;
+            case 4: return New4.class;
+            case 5: return New5.class;
+            case 6: return New6.class;
+            default:
+                throw new IllegalArgumentException("constructor projection supports up to 6 arguments: " + arity);
+        }
+    }
+
+    private static Object[] primitiveDefaults(Class<?>[] parameterTypes) {
+        Object[] defaults = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i].isPrimitive()) {
+                defaults[i] = DEFAULTS.get(parameterTypes[i]);
+            }
+        }
+        return defaults;
+    }
+
+    private static Class<?>[] instantiatedTypes(Class<?>[] parameterTypes, Class<?>[] argTypes) {
+        Class<?>[] types = new Class<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            types[i] = instantiatedType(parameterTypes[i], argTypes[i]);
+        }
+        return types;
+    }
+
+    // primitive 파라미터는 실제 값의 래퍼 타입으로 받아서 언박싱(+확장) 한다 ex) Integer -> double
+    private static Class<?> instantiatedType(Class<?> parameterType, Class<?> argType) {
+        return parameterType.isPrimitive() ? ClassUtils.resolvePrimitiveIfNecessary(primitive(argType)) : parameterType;
+    }
+
+    private static Method findSetter(Class<?> type, String property, Class<?> argType) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        return Arrays.stream(type.getMethods())
+                .filter(method -> method.getName().equals(name) && method.getParameterCount() == 1)
+                .filter(method -> isAssignable(method.getParameterTypes()[0], argType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "no setter " + type.getSimpleName() + "." + name + "(" + argType.getSimpleName() + ")"));
+    }
+
+    private static boolean isAssignable(Class<?>[] parameterTypes, Class<?>[] argTypes) {
+        if (parameterTypes.length != argTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!isAssignable(parameterTypes[i], argTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAssignable(Class<?> parameterType, Class<?> argType) {
+        if (!parameterType.isPrimitive()) {
+            return parameterType.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(argType));
+        }
+        Class<?> primitive = primitive(argType);
+        return primitive == parameterType || WIDENING.getOrDefault(primitive, Collections.emptyList()).contains(parameterType);
+    }
+
+    private static Class<?> primitive(Class<?> type) {
+        if (type.isPrimitive()) {
+            return type;
+        }
+        return ClassUtils.isPrimitiveWrapper(type) ? MethodType.methodType(type).unwrap().returnType() : type;
+    }
+
+    private static String propertyName(Expression<?> expression) {
+        if (expression instanceof Path) {
+            return ((Path<?>) expression).getMetadata().getName();
+        }
+        if (expression instanceof Operation && ((Operation<?>) expression).getOperator() == Ops.ALIAS) {
+            return propertyName(((Operation<?>) expression).getArg(1));
+        }
+        throw new IllegalArgumentException("bean projection needs a path or an alias: " + expression);
+    }
+
+    private static String key(String kind, Class<?> type, Class<?>[] argTypes, String[] properties) {
+        return kind + ":" + type.getName() + Arrays.toString(argTypes) + (properties != null ? Arrays.toString(properties) : "");
+    }
+
+    private static class LambdaFactoryExpression<T> extends FactoryExpressionBase<T> {
+        private final List<Expression<?>> args;
+        private final Function<Object[], ?> factory;
+
+        private LambdaFactoryExpression(Class<? extends T> type, Expression<?>[] args, Function<Object[], ?> factory) {
+            super(type);
+            this.args = List.of(args);
+            this.factory = factory;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... row) {
+            return (T) factory.apply(row);
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+    }
+
+    interface Setter {
+        void set(Object bean, Object value);
+    }
+
+    interface New0 {
+        Object create();
+    }
+
+    interface New1 {
+        Object create(Object a);
+    }
+
+    interface New2 {
+        Object create(Object a, Object b);
+    }
+
+    interface New3 {
+        Object create(Object a, Object b, Object c);
+    }
+
+    interface New4 {
+        Object create(Object a, Object b, Object c, Object d);
+    }
+
+    interface New5 {
+        Object create(Object a, Object b, Object c, Object d, Object e);
+    }
+
+    interface New6 {
+        Object create(Object a, Object b, Object c, Object d, Object e, Object f);
+    }
+}
@@ -0,0 +1,78 @@
+package com.study.querydsl.support;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * 대량 테스트 데이터 - 회원 수백만, 팀 수천 규모를 saveAllInBatch 로 chunk 단위 적재
+ * 팀 크기는 zipf 분포 (teamSkew 가 클수록 앞쪽 팀에 몰린다, 0 이면 균등)
+ * 나이는 30 전후에 몰리고 99 까지 꼬리가 긴 분포
+ * seed 가 같으면 같은 데이터가 만들어진다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberDataGenerator {
+    private static final int CHUNK = 10_000; // saveAllInBatch 한번(트랜잭션 하나)에 넣는 회원 수
+
+    private final MemberJpaRepository memberJpaRepository;
+
+    public long generate(int members, int teams, double teamSkew, int batchSize, long seed) {
+        Random random = new Random(seed);
+        List<Team> teamList = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            teamList.add(new Team("team" + i));
+        }
+        double[] cumulative = zipfCumulative(teams, teamSkew);
+
+        long saved = 0;
+        List<Member> chunk = new ArrayList<>(CHUNK);
+        for (int i = 0; i < members; i++) {
+            // changeTeam 을 쓰면 Team.members 에 회원이 계속 쌓이므로 연관관계 주인 쪽만 설정
+            Member member = new Member("member" + i, age(random));
+            member.setTeam(teamList.get(pick(cumulative, random)));
+            chunk.add(member);
+            if (chunk.size() == CHUNK) {
+                saved += memberJpaRepository.saveAllInBatch(chunk, batchSize);
+                chunk.clear();
+                log.info("generated {}/{} members", saved, members);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saved += memberJpaRepository.saveAllInBatch(chunk, batchSize);
+        }
+        return saved;
+    }
+
+    // rank i 팀의 가중치 1 / (i+1)^skew 누적합
+    static double[] zipfCumulative(int teams, double skew) {
+        double[] cumulative = new double[teams];
+        double sum = 0;
+        for (int i = 0; i < teams; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    static int pick(double[] cumulative, Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+
+    // 로그 정규 분포 - 중앙값 30 정도, 오른쪽 꼬리
+    static int age(Random random) {
+        long age = 15 + Math.round(Math.exp(2.7 + 0.5 * random.nextGaussian()));
+        return (int) Math.min(age, 99);
+    }
+}
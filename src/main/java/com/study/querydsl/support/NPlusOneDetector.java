@@ -0,0 +1,122 @@
+package com.study.querydsl.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * 지연 로딩(Member.team 프록시, Team.members 컬렉션)으로 같은 모양의 select 가
+ * 한 요청/트랜잭션 안에서 threshold 번을 넘게 나가면 N+1 로 보고 로그를 남기거나(LOG) 예외를 던진다(FAIL)
+ *
+ * 지연 로딩이 아닌 statement 는 ThreadLocal 조회 한번만 하고 통과시킨다
+ */
+@Slf4j
+public class NPlusOneDetector implements StatementInspector {
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+    private static final ThreadLocal<String> PENDING_LAZY_LOAD = new ThreadLocal<>();
+    private static final String APP_PACKAGE = "com.study.querydsl.";
+
+    public enum Mode {LOG, FAIL}
+
+    private final int threshold;
+    private final Mode mode;
+
+    public NPlusOneDetector(int threshold, Mode mode) {
+        this.threshold = threshold;
+        this.mode = mode;
+    }
+
+    /*
+     * hibernate 이벤트 리스너에서 지연 로딩 직전에 호출 - 바로 다음 statement 가 이 연관관계 때문에 나간 것
+     */
+    public static void markLazyLoad(String association) {
+        PENDING_LAZY_LOAD.set(association);
+    }
+
+    public static void clearLazyLoad() {
+        PENDING_LAZY_LOAD.remove();
+    }
+
+    public Scope begin(String name) {
+        Scope scope = new Scope(name);
+        SCOPE.set(scope);
+        return scope;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String association = PENDING_LAZY_LOAD.get();
+        if (association == null) {
+            return sql;
+        }
+        PENDING_LAZY_LOAD.remove();
+
+        Scope scope = currentScope();
+        if (scope != null && scope.record(sql) == threshold + 1) {
+            report(scope, association, sql);
+        }
+        return sql;
+    }
+
+    private Scope currentScope() {
+        Scope scope = SCOPE.get();
+        if (scope != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return scope;
+        }
+        // 요청 범위가 없으면 (배치, 테스트) 현재 트랜잭션 범위로 센다
+        Scope txScope = begin("transaction " + TransactionSynchronizationManager.getCurrentTransactionName());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                txScope.close();
+            }
+        });
+        return txScope;
+    }
+
+    private void report(Scope scope, String association, String sql) {
+        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+        String message = String.format("N+1 suspected in [%s]: lazy load of %s ran more than %d times (repository: %s, caller: %s) sql: %s",
+                scope.name, association, threshold, findFrame(stack, APP_PACKAGE + "repository."), findFrame(stack, APP_PACKAGE), sql);
+        if (mode == Mode.FAIL) {
+            throw new NPlusOneException(message);
+        }
+        log.warn(message);
+    }
+
+    private static String findFrame(StackTraceElement[] stack, String packagePrefix) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith(packagePrefix)
+                    && !className.startsWith(APP_PACKAGE + "support.")
+                    && !className.contains("$HibernateProxy$")) {
+                return frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+
+    public static class Scope implements AutoCloseable {
+        private final String name;
+        private final Map<String, Integer> lazyStatements = new HashMap<>();
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        private int record(String sql) {
+            return lazyStatements.merge(sql, 1, Integer::sum);
+        }
+
+        @Override
+        public void close() {
+            if (SCOPE.get() == this) {
+                SCOPE.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.study.querydsl.support;
+
+public class NPlusOneException extends RuntimeException {
+    public NPlusOneException(String message) {
+        super(message);
+    }
+}
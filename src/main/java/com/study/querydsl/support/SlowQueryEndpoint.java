@@ -0,0 +1,33 @@
+package com.study.querydsl.support;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+ * GET /actuator/slowqueries - 최근 느린 쿼리, DELETE 로 비운다
+ */
+@Component
+@ConditionalOnBean(SlowQueryRecorder.class)
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+    private final SlowQueryRecorder recorder;
+
+    public SlowQueryEndpoint(SlowQueryRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public List<SlowQueryRecorder.SlowQuery> slowQueries() {
+        return recorder.recent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recorder.clear();
+    }
+}
@@ -0,0 +1,182 @@
+package com.study.querydsl.support;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.Getter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * threshold-millis 를 넘은 statement 만 모아두는 링버퍼 (p6spy 리스너, /actuator/slowqueries 로 조회)
+ * SQL, 값이 채워진 SQL, 호출한 리포지토리 메서드, 건수, EXPLAIN 결과를 남긴다
+ * 느린 쿼리에서만 스택을 보므로 나머지 쿼리에는 시간 비교 한번 외엔 비용이 없다
+ * select 는 결과를 다 읽고 ResultSet 을 닫을 때 건수와 함께 기록한다
+ * EXPLAIN (member.slow-query.explain, 기본 off) 은 호출한 스레드/트랜잭션을 붙잡지 않도록 별도 스레드에서 새 커넥션으로 하고
+ * explain-interval-millis 에 한번만 한다 - DB 가 느려서 느린 쿼리가 몰릴 때 EXPLAIN 으로 부하를 더 얹지 않기 위함
+ */
+@Component
+@ConditionalOnProperty(name = "member.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryRecorder extends JdbcEventListener {
+    private static final String REPOSITORY_PACKAGE = "com.study.querydsl.repository.";
+    private static final ThreadLocal<Boolean> EXPLAINING = new ThreadLocal<>();
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final long explainIntervalNanos;
+    private final ObjectProvider<DataSource> dataSource; // DataSource 가 이 리스너로 감싸지므로 쓸 때 꺼낸다
+    private final ExecutorService explainer;
+    private final AtomicLong nextExplainAt = new AtomicLong(Long.MIN_VALUE);
+    private final SlowQuery[] buffer;
+    private long recorded; // 지금까지 기록한 수, buffer[recorded % length] 가 다음 자리
+
+    public SlowQueryRecorder(@Value("${member.slow-query.threshold-millis:200}") long thresholdMillis,
+                             @Value("${member.slow-query.capacity:100}") int capacity,
+                             @Value("${member.slow-query.explain:false}") boolean explain,
+                             @Value("${member.slow-query.explain-interval-millis:1000}") long explainIntervalMillis,
+                             ObjectProvider<DataSource> dataSource) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+        this.explainIntervalNanos = TimeUnit.MILLISECONDS.toNanos(explainIntervalMillis);
+        this.dataSource = dataSource;
+        this.explainer = explain ? new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+                new CustomizableThreadFactory("slow-query-explain-"), new ThreadPoolExecutor.DiscardPolicy()) : null;
+        this.buffer = new SlowQuery[capacity];
+    }
+
+    @PreDestroy
+    public void close() {
+        if (explainer != null) {
+            explainer.shutdownNow();
+        }
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        StatementInformation statement = resultSetInformation.getStatementInformation();
+        if (statement.getTotalTimeElapsed() >= thresholdNanos) {
+            record(statement, statement.getTotalTimeElapsed(), resultSetInformation.getCurrRow() + 1);
+        }
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation,
+                                     long timeElapsedNanos, int rowCount, SQLException e) {
+        if (timeElapsedNanos >= thresholdNanos) {
+            record(statementInformation, timeElapsedNanos, rowCount);
+        }
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos,
+                                     String sql, int rowCount, SQLException e) {
+        if (timeElapsedNanos >= thresholdNanos) {
+            record(statementInformation, timeElapsedNanos, rowCount);
+        }
+    }
+
+    // 최근 것부터
+    public List<SlowQuery> recent() {
+        synchronized (buffer) {
+            int size = (int) Math.min(recorded, buffer.length);
+            List<SlowQuery> result = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(buffer[(int) ((recorded - i) % buffer.length)]);
+            }
+            return result;
+        }
+    }
+
+    public void clear() {
+        synchronized (buffer) {
+            recorded = 0;
+        }
+    }
+
+    private void record(StatementInformation statement, long elapsedNanos, long rows) {
+        if (EXPLAINING.get() != null) { // EXPLAIN 자체는 기록하지 않는다
+            return;
+        }
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                repositoryMethod(), rows, statement.getSql(), statement.getSqlWithValues());
+        synchronized (buffer) {
+            buffer[(int) (recorded++ % buffer.length)] = slowQuery;
+        }
+        if (explain && acquireExplain()) {
+            explainer.execute(() -> slowQuery.plan = explain(slowQuery.sqlWithValues));
+        }
+    }
+
+    // explain-interval-millis 에 한번
+    private boolean acquireExplain() {
+        long now = System.nanoTime();
+        long next = nextExplainAt.get();
+        return (next == Long.MIN_VALUE || now - next >= 0) && nextExplainAt.compareAndSet(next, now + explainIntervalNanos);
+    }
+
+    // 값이 채워진 SQL 로 새 커넥션에서 EXPLAIN (H2 는 select/insert/update/delete 모두 지원, 실행하지 않고 계획만)
+    private String explain(String sqlWithValues) {
+        EXPLAINING.set(Boolean.TRUE);
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement explain = connection.createStatement();
+             ResultSet rs = explain.executeQuery("explain " + sqlWithValues)) {
+            return rs.next() ? rs.getString(1) : null;
+        } catch (SQLException e) {
+            return "explain failed: " + e.getMessage();
+        } finally {
+            EXPLAINING.remove();
+        }
+    }
+
+    private static String repositoryMethod() {
+        for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith(REPOSITORY_PACKAGE) && !className.contains("$$")) {
+                return className.substring(REPOSITORY_PACKAGE.length()) + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+
+    @Getter
+    public static class SlowQuery {
+        private final Instant at;
+        private final long elapsedMillis;
+        private final String method;
+        private final long rows;
+        private final String sql;
+        private final String sqlWithValues;
+        private volatile String plan; // EXPLAIN 이 끝나면 채워진다 (꺼져 있거나 건너뛰면 null)
+
+        private SlowQuery(Instant at, long elapsedMillis, String method, long rows, String sql, String sqlWithValues) {
+            this.at = at;
+            this.elapsedMillis = elapsedMillis;
+            this.method = method;
+            this.rows = rows;
+            this.sql = sql;
+            this.sqlWithValues = sqlWithValues;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * H2 인메모리 두개를 프라이머리/레플리카로 두고 라우팅 확인
+ */
+class ReplicationDataSourceTest {
+    DriverManagerDataSource primary;
+    DriverManagerDataSource replica;
+    ReplicationDataSource dataSource;
+
+    @BeforeEach
+    public void before(){
+        primary = h2("primary");
+        replica = h2("replica");
+        new JdbcTemplate(primary).execute("create table node (name varchar(20))");
+        new JdbcTemplate(primary).execute("insert into node values ('primary')");
+        new JdbcTemplate(replica).execute("create table node (name varchar(20))");
+        new JdbcTemplate(replica).execute("insert into node values ('replica')");
+    }
+
+    @AfterEach
+    public void after(){
+        dataSource.close();
+        new JdbcTemplate(primary).execute("drop table node");
+        new JdbcTemplate(replica).execute("drop table node");
+    }
+
+    @Test
+    public void readOnlyGoesToReplica(){
+        dataSource = new ReplicationDataSource(primary, replica, new ReplicaLagMonitor(replica, null, 5, 60_000));
+
+        assertThat(currentNode(true)).isEqualTo("replica");
+        assertThat(currentNode(false)).isEqualTo("primary");
+    }
+
+    @Test
+    public void laggingReplicaFallsBackToPrimary(){
+        dataSource = new ReplicationDataSource(primary, replica, new ReplicaLagMonitor(replica, "select 100", 5, 60_000));
+
+        assertThat(currentNode(true)).isEqualTo("primary");
+    }
+
+    private String currentNode(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+    }
+
+    private static DriverManagerDataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
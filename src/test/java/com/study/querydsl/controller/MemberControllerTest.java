@@ -0,0 +1,87 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.support.CapturingStatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ * /v1 은 트랜잭션 밖에서 불리므로 (coalescer 를 타는 실제 경로) 커밋된 데이터로 확인한다
+ */
+@SpringBootTest
+class MemberControllerTest {
+    @Autowired
+    MemberController memberController;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void before(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team team = new Team("v1Team");
+            em.persist(team);
+            em.persist(new Member("v1member1", 10, team));
+            em.persist(new Member("v1member2", 20, team));
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'v1member%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'v1Team'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchV1ResolvesTeamNamesWithoutJoin(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("v1Team");
+        CapturingStatementInspector.clear();
+
+        List<MemberTeamDto> result = memberController.searchMemberV1(condition);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("v1member1", "v1member2");
+        assertThat(result).extracting("teamname").containsOnly("v1Team");
+        // searchWithTeamCache 경로 - 팀 이름은 2차 캐시에서 채운다
+        assertThat(CapturingStatementInspector.statements())
+                .filteredOn(sql -> sql.toLowerCase().contains("from member"))
+                .isNotEmpty()
+                .allSatisfy(sql -> assertThat(sql.toLowerCase()).doesNotContain("join"));
+    }
+
+    @Test
+    public void exportRequiresSelectiveCondition() throws IOException {
+        MemberSearchCondition openAge = new MemberSearchCondition();
+        openAge.setAgeGoe(0);
+        assertThatThrownBy(() -> memberController.exportMemberV1(openAge, "ndjson", new MockHttpServletResponse()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("v1Team");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        memberController.exportMemberV1(condition, "ndjson", response);
+
+        assertThat(response.getContentAsString().split("\n")).hasSize(2);
+    }
+}
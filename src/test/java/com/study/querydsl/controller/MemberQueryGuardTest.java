@@ -0,0 +1,74 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberQueryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberQueryGuardTest {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberQueryGuard guard = new MemberQueryGuard(100, 1000, 20, new MemberQueryMetrics(registry, true));
+
+    @Test
+    public void capPageSize(){
+        Pageable checked = guard.checkPage(new MemberSearchCondition(), PageRequest.of(2, 1_000_000));
+
+        assertThat(checked.getPageSize()).isEqualTo(100);
+        assertThat(checked.getPageNumber()).isEqualTo(2);
+        assertThat(guard.checkSize(500)).isEqualTo(100);
+        assertThat(count("downgraded", "page-size")).isEqualTo(2);
+    }
+
+    @Test
+    public void rejectDeepOffsetWithoutUsername(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+
+        assertThatThrownBy(() -> guard.checkPage(condition, PageRequest.of(11, 100)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("/v4/members");
+        assertThat(count("rejected", "deep-offset")).isEqualTo(1);
+
+        condition.setUsername("member1"); // username 조건이면 허용
+        assertThat(guard.checkPage(condition, PageRequest.of(11, 100)).getOffset()).isEqualTo(1100);
+    }
+
+    @Test
+    public void rejectUnfilteredSearch(){
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername("");
+
+        assertThatThrownBy(() -> guard.checkSearch(blank)).isInstanceOf(IllegalArgumentException.class);
+
+        MemberSearchCondition blankSpace = new MemberSearchCondition();
+        blankSpace.setTeamname(" ");
+        assertThatThrownBy(() -> guard.checkSearch(blankSpace)).isInstanceOf(IllegalArgumentException.class);
+
+        MemberSearchCondition openAge = new MemberSearchCondition();
+        openAge.setAgeGoe(0); // 한쪽만 막힌 나이 조건은 사실상 전체
+        assertThatThrownBy(() -> guard.checkSearch(openAge)).isInstanceOf(IllegalArgumentException.class);
+
+        MemberSearchCondition wideAge = new MemberSearchCondition();
+        wideAge.setAgeGoe(0);
+        wideAge.setAgeLoe(200);
+        assertThatThrownBy(() -> guard.checkSearch(wideAge)).isInstanceOf(IllegalArgumentException.class);
+
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+        byAge.setAgeLoe(40);
+        guard.checkSearch(byAge);
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamname("teamA");
+        guard.checkSearch(byTeam);
+        assertThat(count("rejected", "unfiltered")).isEqualTo(4);
+    }
+
+    private double count(String action, String reason) {
+        return registry.get("member.guard").tag("action", action).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,72 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/*
+ * 비동기 쿼리는 다른 스레드(트랜잭션)에서 돌기 때문에 테스트 트랜잭션 없이 커밋된 데이터로 확인한다
+ */
+@SpringBootTest
+class MemberAsyncRepositoryTest {
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberAsyncRepository memberAsyncRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // 다른 테스트가 커밋한 데이터는 건드리지 않도록 이 테스트가 만든 행만 지운다
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'async%'").executeUpdate());
+    }
+
+    @Test
+    public void searchAndPageAsync() throws Exception {
+        memberJpaRepository.save(new Member("async1", 10));
+        memberJpaRepository.save(new Member("async2", 20));
+        memberJpaRepository.save(new Member("async3", 30));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        CompletableFuture<List<MemberTeamDto>> search = memberAsyncRepository.search(condition);
+        CompletableFuture<Page<MemberTeamDto>> page = memberAsyncRepository.pagingComplicate(condition, PageRequest.of(0, 1));
+
+        assertThat(search.get(5, TimeUnit.SECONDS)).extracting("username").containsExactlyInAnyOrder("async2", "async3");
+        assertThat(page.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void failureCompletesFuture(){
+        CompletableFuture<?> slice = memberAsyncRepository.pagingKeyset(new MemberSearchCondition(), null, 0);
+
+        Throwable thrown = catchThrowable(() -> slice.get(5, TimeUnit.SECONDS));
+        assertThat(thrown).isInstanceOf(ExecutionException.class);
+        assertThat(thrown).hasRootCauseInstanceOf(IllegalArgumentException.class); // 리포지토리 예외 변환으로 InvalidDataAccessApiUsageException 에 감싸져 온다
+    }
+}
@@ -0,0 +1,96 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/*
+ * 청크마다 워커 스레드의 트랜잭션에서 커밋하므로 테스트 트랜잭션 없이 커밋된 데이터로 확인한다
+ */
+@SpringBootTest
+class MemberBatchProcessorTest {
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBatchProcessor batchProcessor;
+
+    @BeforeEach
+    public void before(){
+        Team batchTeam = new Team("batchTeam");
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            members.add(new Member("batch" + i, i * 10, batchTeam));
+        }
+        memberJpaRepository.saveAllInBatch(members, 10);
+    }
+
+    // 다른 테스트가 커밋한 데이터는 건드리지 않도록 이 테스트가 만든 행만 지운다
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'batch%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'batchTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void processInParallelChunks(){
+        Set<List<String>> chunks = ConcurrentHashMap.newKeySet();
+
+        long count = batchProcessor.process(member.username.startsWith("batch"), 2, 3, members -> {
+            assertThat(members).allMatch(m -> Hibernate.isInitialized(m.getTeam()));
+            List<String> usernames = new ArrayList<>();
+            for (Member m : members) {
+                usernames.add(m.getUsername());
+                m.setAge(m.getAge() + 1);
+            }
+            chunks.add(usernames);
+        });
+
+        assertThat(count).isEqualTo(7);
+        assertThat(chunks).hasSize(4); // 2, 2, 2, 1
+        assertThat(chunks).anyMatch(chunk -> chunk.size() == 1);
+        assertThat(memberJpaRepository.findByUsername("batch6").get(0).getAge()).isEqualTo(61); // 청크 트랜잭션 커밋
+    }
+
+    @Test
+    public void failedChunkStopsAndRethrows(){
+        Throwable thrown = catchThrowable(() -> batchProcessor.process(member.username.startsWith("batch"), 2, 1, members -> {
+            for (Member m : members) {
+                if (m.getUsername().equals("batch3")) {
+                    throw new IllegalStateException("boom");
+                }
+                m.setAge(m.getAge() + 1);
+            }
+        }));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        assertThat(memberJpaRepository.findByUsername("batch1").get(0).getAge()).isEqualTo(11); // 앞 청크는 커밋
+        assertThat(memberJpaRepository.findByUsername("batch2").get(0).getAge()).isEqualTo(20); // 실패한 청크는 롤백
+        assertThat(memberJpaRepository.findByUsername("batch4").get(0).getAge()).isEqualTo(40); // 뒤 청크는 처리하지 않음
+    }
+}
@@ -0,0 +1,115 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.BulkProgress;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkOperationsTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
+    @BeforeEach
+    public void before(){
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("bulk" + i, i));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void updateInChunks(){
+        Member managed = em.createQuery("select m from Member m where m.username = 'bulk10'", Member.class)
+                .getSingleResult();
+        List<BulkProgress> progress = new ArrayList<>();
+
+        long count = bulkOperations.update(
+                member.username.startsWith("bulk").and(member.age.lt(70)),
+                update -> update.set(member.age, member.age.add(100)),
+                30, 0, progress::add);
+
+        assertThat(count).isEqualTo(70);
+        assertThat(progress).extracting("affected").containsExactly(30L, 30L, 10L);
+        assertThat(progress).extracting("totalAffected").containsExactly(30L, 60L, 70L);
+
+        // 벌크 수정된 회원은 영속성 컨텍스트에서 빠지므로 다시 읽으면 바뀐 값이 보인다
+        assertThat(em.contains(managed)).isFalse();
+        Member reloaded = em.find(Member.class, managed.getId());
+        assertThat(reloaded.getAge()).isEqualTo(110);
+    }
+
+    @Test
+    public void deleteInChunks(){
+        Member untouched = em.createQuery("select m from Member m where m.username = 'bulk10'", Member.class)
+                .getSingleResult();
+        List<BulkProgress> progress = new ArrayList<>();
+
+        long count = bulkOperations.delete(
+                member.username.startsWith("bulk").and(member.age.goe(50)),
+                20, 0, progress::add);
+
+        assertThat(count).isEqualTo(50);
+        assertThat(progress).hasSize(3);
+        assertThat(em.contains(untouched)).isTrue(); // 대상이 아닌 회원은 그대로
+        Long remaining = em.createQuery("select count(m) from Member m where m.username like 'bulk%'", Long.class)
+                .getSingleResult();
+        assertThat(remaining).isEqualTo(50);
+    }
+
+    @Test
+    public void evictKeepsSharedTeamManaged(){
+        Team team = new Team("bulkTeam");
+        em.persist(team);
+        Member changed = new Member("bulkTeamMember1", 10, team);
+        Member other = new Member("bulkTeamMember2", 20, team);
+        em.persist(changed);
+        em.persist(other);
+        em.flush();
+
+        bulkOperations.update(member.username.eq("bulkTeamMember1"), update -> update.set(member.age, 11), 10, 0, p -> {});
+
+        // 바뀐 회원만 빠지고, cascade 로 팀까지 떨어지지 않는다
+        assertThat(em.contains(changed)).isFalse();
+        assertThat(changed.getTeam()).isSameAs(team);
+        assertThat(em.contains(other)).isTrue();
+        assertThat(em.contains(team)).isTrue();
+        assertThat(em.find(Member.class, changed.getId()).getAge()).isEqualTo(11);
+    }
+
+    @Test
+    public void updateByTeamCondition(){
+        Team teamA = new Team("bulkTeamA");
+        Team teamB = new Team("bulkTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member inA = new Member("bulkTeamA1", 10, teamA);
+        Member inB = new Member("bulkTeamB1", 10, teamB);
+        em.persist(inA);
+        em.persist(inB);
+        em.flush();
+
+        long count = bulkOperations.update(team.name.eq("bulkTeamA"), update -> update.set(member.age, 30), 10, 0, p -> {});
+
+        assertThat(count).isEqualTo(1);
+        assertThat(em.find(Member.class, inA.getId()).getAge()).isEqualTo(30);
+        assertThat(em.find(Member.class, inB.getId()).getAge()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,99 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    @Test
+    public void cacheByNormalizedCondition(){
+        MemberCountCache cache = new MemberCountCache(60_000, 10);
+        AtomicInteger queries = new AtomicInteger();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+        MemberSearchCondition blankUsername = new MemberSearchCondition();
+        blankUsername.setTeamname("teamA");
+        blankUsername.setUsername(" ");
+
+        assertThat(cache.count(condition, () -> queries.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(cache.count(blankUsername, () -> queries.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(queries.get()).isEqualTo(1);
+
+        cache.invalidateAll();
+        assertThat(cache.countIfPresent(condition)).isNull();
+        assertThat(cache.count(condition, () -> queries.incrementAndGet() * 10L)).isEqualTo(20);
+    }
+
+    @Test
+    public void invalidateAfterCommit(){
+        MemberCountCache cache = new MemberCountCache(60_000, 10);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        cache.put(condition, 10L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateAfterCommit();
+            assertThat(cache.countIfPresent(condition)).isEqualTo(10L); // 커밋 전에는 그대로
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(cache.countIfPresent(condition)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed(){
+        MemberCountCache cache = new MemberCountCache(60_000, 2);
+
+        MemberSearchCondition a = new MemberSearchCondition();
+        a.setUsername("a");
+        MemberSearchCondition b = new MemberSearchCondition();
+        b.setUsername("b");
+        MemberSearchCondition c = new MemberSearchCondition();
+        c.setUsername("c");
+
+        cache.count(a, () -> 1L);
+        cache.count(b, () -> 2L);
+        cache.countIfPresent(a); // a 를 최근 사용으로
+        cache.count(c, () -> 3L);
+
+        assertThat(cache.countIfPresent(a)).isEqualTo(1L);
+        assertThat(cache.countIfPresent(b)).isNull();
+        assertThat(cache.countIfPresent(c)).isEqualTo(3L);
+    }
+
+    @Test
+    public void putExactCount(){
+        MemberCountCache cache = new MemberCountCache(60_000, 10);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+
+        cache.put(condition, 7L);
+
+        assertThat(cache.countIfPresent(condition)).isEqualTo(7L);
+        assertThat(cache.count(condition, () -> 100L)).isEqualTo(7L);
+        assertThat(new MemberCountCache(0, 10)).satisfies(disabled -> {
+            disabled.put(condition, 7L);
+            assertThat(disabled.countIfPresent(condition)).isNull();
+        });
+    }
+
+    @Test
+    public void disabledWhenTtlIsZero(){
+        MemberCountCache cache = new MemberCountCache(0, 10);
+        AtomicInteger queries = new AtomicInteger();
+
+        cache.count(new MemberSearchCondition(), queries::incrementAndGet);
+        cache.count(new MemberSearchCondition(), queries::incrementAndGet);
+
+        assertThat(queries.get()).isEqualTo(2);
+    }
+}
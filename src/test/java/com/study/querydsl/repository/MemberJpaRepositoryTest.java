@@ -3,13 +3,16 @@ package com.study.querydsl.repository;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
 import com.study.querydsl.entity.Team;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -112,6 +115,96 @@ class MemberJpaRepositoryTest {
 
     }
 
+    @Test
+    public void searchByTemplate(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1",10,teamA));
+        em.persist(new Member("member2",20,teamA));
+        em.persist(new Member("member3",30,teamB));
+        em.persist(new Member("member4",40,null));
+
+        // 16가지 조합 모두 querydsl search, searchByBuilder 와 같은 결과여야 한다 - 빈 문자열/공백은 조건 없음
+        for (String blank : new String[]{null, "", " "}) {
+            for (int mask = 0; mask < 16; mask++) {
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setUsername((mask & 1) != 0 ? "member2" : blank);
+                condition.setTeamname((mask & 2) != 0 ? "teamA" : blank);
+                if ((mask & 4) != 0) condition.setAgeGoe(15);
+                if ((mask & 8) != 0) condition.setAgeLoe(35);
+
+                List<MemberTeamDto> expected = memberRepository.search(condition);
+                assertThat(memberRepository.searchByTemplate(condition))
+                        .as("mask %d, blank '%s'", mask, blank)
+                        .containsExactlyInAnyOrderElementsOf(expected);
+                assertThat(memberRepository.searchByBuilder(condition))
+                        .as("builder mask %d, blank '%s'", mask, blank)
+                        .containsExactlyInAnyOrderElementsOf(expected);
+            }
+        }
+    }
+
+    @Test
+    public void searchForEach(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        List<MemberTeamDto> result = new ArrayList<>();
+        long count = memberRepository.searchForEach(condition, 2, result::add);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member2", "member3", "member4");
+        assertThat(result).extracting("teamname").containsOnly("teamA");
+    }
+
+    @Test
+    public void forEachMember(){
+        Team teamA = new Team("batchTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("batch" + i, i * 10, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        List<String> usernames = new ArrayList<>();
+        long count = memberRepository.forEachMember(QMember.member.team.name.eq("batchTeam").and(QMember.member.age.goe(20)), 2, m -> {
+            assertThat(Hibernate.isInitialized(m.getTeam())).isTrue(); // fetch join
+            usernames.add(m.getUsername());
+            m.setAge(m.getAge() + 1);
+        });
+
+        assertThat(count).isEqualTo(3);
+        assertThat(usernames).containsExactly("batch2", "batch3", "batch4");
+        assertThat(memberRepository.findByUsername("batch4").get(0).getAge()).isEqualTo(41); // flush 로 반영
+    }
+
+    @Test
+    public void saveAllInBatch(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            members.add(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        long count = memberRepository.saveAllInBatch(members, 3);
+
+        assertThat(count).isEqualTo(7);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member0", "member2", "member4", "member6");
+        assertThat(memberRepository.findAll()).hasSize(7);
+    }
 
     @Test
     void save() {
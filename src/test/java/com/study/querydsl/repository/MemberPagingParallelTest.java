@@ -0,0 +1,112 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * pagingParallel 의 카운트는 쓰기 트랜잭션 밖에서만 memberCountExecutor 로 넘어가므로 테스트 트랜잭션 없이 커밋된 데이터로 확인한다
+ */
+@SpringBootTest
+class MemberPagingParallelTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ThreadPoolTaskExecutor memberCountExecutor;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    @BeforeEach
+    public void before(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 1; i <= 4; i++) {
+                em.persist(new Member("parallel" + i, 1000 + i));
+            }
+        });
+        condition.setAgeGoe(1001); // 이 테스트가 넣은 회원만
+    }
+
+    // 다른 테스트가 커밋한 데이터는 건드리지 않도록 이 테스트가 만든 행만 지운다
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'parallel%'").executeUpdate());
+    }
+
+    @Test
+    public void countOnCountExecutor() throws InterruptedException {
+        long completed = memberCountExecutor.getThreadPoolExecutor().getCompletedTaskCount();
+
+        Page<MemberTeamDto> page = memberRepository.pagingParallel(condition, PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting("username").containsExactly("parallel1", "parallel2");
+        assertThat(awaitCompletedTasks(completed + 1)).isTrue(); // 카운트는 풀에서 돌았다
+    }
+
+    @Test
+    public void countTimeoutFallsBackToLowerBound() throws InterruptedException {
+        // 풀 스레드를 모두 붙잡아 두면 카운트가 큐에서 기다리다 count-timeout-millis 를 넘긴다
+        int threads = memberCountExecutor.getMaxPoolSize();
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            memberCountExecutor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            Page<MemberTeamDto> page = memberRepository.pagingParallel(condition, PageRequest.of(0, 2));
+
+            assertThat(page.getTotalElements()).isEqualTo(3); // 정확한 값(4) 대신 하한: 0 + 2 + 1
+            assertThat(page.hasNext()).isTrue();
+            assertThat(page.getContent()).extracting("username").containsExactly("parallel1", "parallel2");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private boolean awaitCompletedTasks(long expected) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (memberCountExecutor.getThreadPoolExecutor().getCompletedTaskCount() >= expected) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@SpringBootTest
+@Transactional
+class MemberQueryMetricsTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void recordQueryAndCountSeparately(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+
+        long before = timerCount("member.query", "MemberRepositoryImpl.pagingComplicate", "success");
+        long countBefore = timerCount("member.query.count", "MemberRepositoryImpl.pagingComplicate");
+        memberRepository.pagingComplicate(new MemberSearchCondition(), PageRequest.of(0, 2));
+
+        assertThat(timerCount("member.query", "MemberRepositoryImpl.pagingComplicate", "success")).isEqualTo(before + 1);
+        assertThat(timerCount("member.query.count", "MemberRepositoryImpl.pagingComplicate")).isEqualTo(countBefore + 1);
+        assertThat(registry.find("member.query.rows").tag("method", "MemberRepositoryImpl.pagingComplicate").summary().totalAmount())
+                .isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void recordMemberJpaRepository(){
+        long before = timerCount("member.query", "MemberJpaRepository.search", "success");
+        memberJpaRepository.search(new MemberSearchCondition());
+
+        assertThat(timerCount("member.query", "MemberJpaRepository.search", "success")).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void bulkUpdateCountIsNotRowCount(){
+        long before = timerCount("member.query", "MemberJpaRepository.bulkAgePlus", "success");
+        memberJpaRepository.bulkAgePlus(0, 1);
+
+        // 지연시간은 기록하지만 update 건수는 조회 건수 분포(member.query.rows)에 넣지 않는다
+        assertThat(timerCount("member.query", "MemberJpaRepository.bulkAgePlus", "success")).isEqualTo(before + 1);
+        assertThat(registry.find("member.query.rows").tag("method", "MemberJpaRepository.bulkAgePlus").summary()).isNull();
+    }
+
+    @Test
+    public void recordFailedQuery(){
+        long before = timerCount("member.query", "MemberRepositoryImpl.pagingKeyset", "error");
+
+        catchThrowable(() -> memberRepository.pagingKeyset(new MemberSearchCondition(), null, 0));
+
+        // 예외로 끝난 호출도 outcome=error 로 기록된다
+        assertThat(timerCount("member.query", "MemberRepositoryImpl.pagingKeyset", "error")).isEqualTo(before + 1);
+    }
+
+    private long timerCount(String name, String method) {
+        Timer timer = registry.find(name).tag("method", method).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private long timerCount(String name, String method, String outcome) {
+        Timer timer = registry.find(name).tag("method", method).tag("outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.support.CapturingStatementInspector;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * MemberRepositoryCustom 쿼리 모양별로 H2 EXPLAIN 을 떠서 조건이 있는데도 테이블 전체를 읽는 쿼리가 없는지 확인
+ * (Member/Team @Table 인덱스 정의 검증)
+ * 몇십 건이면 옵티마이저가 무엇을 골라도 의미가 없으므로 회원 5000, 팀 50 을 커밋하고 ANALYZE 로 통계를 만든 뒤 본다
+ * (ANALYZE 는 열린 트랜잭션을 커밋하므로 테스트 트랜잭션 밖에서 한번만, 끝나면 만든 행만 지운다)
+ */
+@SpringBootTest
+@Transactional
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MemberQueryPlanTest {
+    private static final int MEMBERS = 5000;
+    private static final int TEAMS = 50;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    public void seed(){
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(new Team("planTeam" + i));
+        }
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            Member member = new Member("plan" + i, i % 100);
+            member.setTeam(teams.get(i % TEAMS));
+            members.add(member);
+        }
+        memberJpaRepository.saveAllInBatch(members, 500);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.unwrap(Session.class).doWork(connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("analyze");
+                    }
+                }));
+    }
+
+    @AfterAll
+    public void cleanUp(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'plan%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'planTeam%'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchQueriesUseIndexes(){
+        for (MemberSearchCondition condition : conditions()) {
+            CapturingStatementInspector.clear();
+            PageRequest page = PageRequest.of(1, 3);
+            memberRepository.search(condition);
+            memberRepository.searchWithTeamCache(condition);
+            memberRepository.pagingSimple(condition, page);
+            memberRepository.pagingComplicate(condition, page);
+            memberRepository.paingOptimize(condition, page);
+            memberRepository.pagingParallel(condition, page);
+            memberRepository.pagingApproximate(condition, page);
+            memberRepository.pagingKeyset(condition, null, 3);
+            memberRepository.searchColumns(condition);
+
+            List<String> statements = new ArrayList<>(CapturingStatementInspector.statements());
+            statements.add(MemberRepositoryImpl.columnsSql(condition, new ArrayList<>())); // JDBC 직접 실행이라 inspector 에 안 잡힌다
+            for (String sql : statements) {
+                if (!sql.toLowerCase().contains(" where ")) {
+                    continue; // 조건 없는 쿼리는 전체를 읽는 게 맞다
+                }
+                String plan = explain(sql);
+                assertThat(plan).as("%s%n%s", condition, plan).doesNotContain(".tableScan");
+            }
+        }
+    }
+
+    private static List<MemberSearchCondition> conditions() {
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("plan3");
+
+        MemberSearchCondition byTeamname = new MemberSearchCondition();
+        byTeamname.setTeamname("planTeam1"); // 2%
+
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+        byAge.setAgeLoe(22); // 3%
+
+        MemberSearchCondition all = new MemberSearchCondition();
+        all.setUsername("plan4");
+        all.setTeamname("planTeam4");
+        all.setAgeGoe(0);
+        all.setAgeLoe(30);
+
+        return List.of(byUsername, byTeamname, byAge, all);
+    }
+
+    // 값은 계획에 영향이 없으므로 타입만 맞춰서 아무 값이나 바인딩
+    private String explain(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                ParameterMetaData parameters = statement.getParameterMetaData();
+                for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                    bindSample(statement, i, parameters.getParameterType(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+
+    private static void bindSample(PreparedStatement statement, int index, int type) throws SQLException {
+        switch (type) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.LONGVARCHAR:
+                statement.setString(index, "member1");
+                break;
+            default:
+                statement.setLong(index, 1L);
+        }
+    }
+}
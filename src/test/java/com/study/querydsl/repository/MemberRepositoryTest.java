@@ -1,14 +1,18 @@
 package com.study.querydsl.repository;
 
+import com.study.querydsl.dto.MemberColumns;
+import com.study.querydsl.dto.MemberCursor;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.entity.Member;
 import com.study.querydsl.entity.Team;
+import com.study.querydsl.support.CapturingStatementInspector;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -105,7 +109,11 @@ class MemberRepositoryTest {
         assertThat(paging.getSize()).isEqualTo(3);
         assertThat(paging.getContent()).extracting("username").containsExactly("member1","member2","member3");
 
-
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername(" "); // 공백뿐이면 조건 없음 - 카운트 캐시 키(normalized)와 같은 규칙
+        Page<MemberTeamDto> blankPaging = memberRepository.pagingSimple(blank, pageRequest);
+        assertThat(blankPaging.getContent()).extracting("username").containsExactly("member1","member2","member3");
+        assertThat(blankPaging.getTotalElements()).isEqualTo(paging.getTotalElements());
     }
 
     @Test
@@ -135,4 +143,144 @@ class MemberRepositoryTest {
         assertThat(memberTeamDtos.getContent()).extracting("username").containsExactly("member1","member2");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchWithTeamCache(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1",10,teamA));
+        em.persist(new Member("member2",20,teamA));
+        em.persist(new Member("member3",30,teamB));
+        em.persist(new Member("member4",40,null));
+        em.flush();
+        CapturingStatementInspector.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+        List<MemberTeamDto> result = memberRepository.searchWithTeamCache(condition);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member1","member2");
+        assertThat(result).extracting("teamname").containsOnly("teamA");
+        assertThat(CapturingStatementInspector.statements())
+                .filteredOn(sql -> sql.toLowerCase().contains("from member"))
+                .allSatisfy(sql -> assertThat(sql.toLowerCase()).doesNotContain("join"));
+
+        List<MemberTeamDto> all = memberRepository.searchWithTeamCache(new MemberSearchCondition());
+        assertThat(all).hasSize(4);
+        assertThat(all).filteredOn(dto -> dto.getTeamId() == null).extracting("teamname").containsOnlyNulls();
+
+        // 2차 캐시가 비어 있어도 팀마다 em.find 하지 않고 in 쿼리 한번으로 읽는다
+        em.clear();
+        em.getEntityManagerFactory().getCache().evict(Team.class);
+        CapturingStatementInspector.clear();
+        assertThat(memberRepository.searchWithTeamCache(new MemberSearchCondition()))
+                .filteredOn(dto -> dto.getTeamId() != null).extracting("teamname").contains("teamA", "teamB").doesNotContainNull();
+        assertThat(CapturingStatementInspector.statements())
+                .filteredOn(sql -> sql.toLowerCase().contains("from team"))
+                .hasSize(1);
+    }
+
+    @Test
+    public void searchPagingParallel(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1",10,teamA));
+        em.persist(new Member("member2",20,teamA));
+        em.persist(new Member("member3",30,teamB));
+        em.persist(new Member("member4",40,teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        // 쓰기 트랜잭션 안이므로 커밋 안된 데이터가 보이도록 같은 커넥션에서 센다 (풀에서 세는 경로는 MemberPagingParallelTest)
+        Page<MemberTeamDto> page = memberRepository.pagingParallel(condition, PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("username").containsExactly("member2","member3");
+    }
+
+    @Test
+    public void searchPagingApproximateDeepPage(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 1030; i++) {
+            em.persist(new Member("member" + i, i % 100, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+
+        // 고정 상한(1000 + 1) 보다 깊은 페이지 - 상한이 페이지 끝 + 1 로 늘어나야 다음 페이지가 보인다
+        Page<MemberTeamDto> deep = memberRepository.pagingApproximate(condition, PageRequest.of(101, 10));
+        assertThat(deep.getContent()).hasSize(10);
+        assertThat(deep.hasNext()).isTrue();
+
+        Page<MemberTeamDto> last = memberRepository.pagingApproximate(condition, PageRequest.of(102, 10));
+        assertThat(last.getContent()).hasSize(10);
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.getTotalElements()).isEqualTo(1030);
+    }
+
+    @Test
+    public void searchPagingKeyset(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1",40,teamA);
+        Member member2 = new Member("member2",20,teamA);
+
+        Member member3 = new Member("member3",20,teamB);
+        Member member4 = new Member("member4",10,teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.pagingKeyset(condition, null, 2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).extracting("username").containsExactly("member4","member2");
+
+        // 토큰 왕복 후에도 같은 위치에서 이어져야 한다
+        String token = MemberCursor.of(first.getContent().get(1)).encode();
+        Slice<MemberTeamDto> second = memberRepository.pagingKeyset(condition, MemberCursor.decode(token), 2);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent()).extracting("username").containsExactly("member3","member1");
+    }
+
+    @Test
+    public void searchColumns(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1",10,teamA));
+        em.persist(new Member("member2",20,teamA));
+        em.persist(new Member("member3",30));
+        em.persist(new Member("member4",40));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        // flush 전 변경도 보여야 한다
+        MemberColumns columns = memberRepository.searchColumns(condition);
+
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.dictionarySize()).isEqualTo(4); // member2~4 + teamA
+        assertThat(columns.getUsername(0)).isEqualTo("member2");
+        assertThat(columns.getTeamname(0)).isEqualTo("teamA");
+        assertThat(columns.getTeamId(1)).isNull();
+        assertThat(columns.getTeamname(1)).isNull();
+
+        List<MemberTeamDto> expected = memberRepository.search(condition);
+        for (int row = 0; row < columns.size(); row++) {
+            assertThat(expected).contains(columns.toDto(row));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchCoalescerTest {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberQueryMetrics metrics = new MemberQueryMetrics(registry, true);
+
+    @Test
+    public void concurrentIdenticalSearchesShareOneQuery() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(condition -> {
+            queries.incrementAndGet();
+            await(release);
+            return List.of(new MemberTeamDto(1L, "member1", 10, 1L, condition.getTeamname()));
+        }, 0, 100, metrics);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<MemberTeamDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamname("teamA");
+            condition.setUsername(i % 2 == 0 ? "" : null); // 빈 문자열도 같은 키
+            futures.add(executor.submit(() -> coalescer.search(condition)));
+        }
+        while (count("query") + count("coalesced") < 8) { // 모두 들어올 때까지
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<List<MemberTeamDto>> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).extracting("teamname").containsExactly("teamA");
+        }
+        executor.shutdown();
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(7);
+    }
+
+    @Test
+    public void cacheFinishedResultUntilTtl(){
+        AtomicInteger queries = new AtomicInteger();
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(condition -> {
+            queries.incrementAndGet();
+            return List.of();
+        }, 60_000, 100, metrics);
+
+        coalescer.search(new MemberSearchCondition());
+        coalescer.search(new MemberSearchCondition());
+
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(count("cached")).isEqualTo(1);
+    }
+
+    @Test
+    public void blankStringSharesKeyWithNoCondition(){
+        List<MemberSearchCondition> loaded = new ArrayList<>();
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(condition -> {
+            loaded.add(condition);
+            return List.of();
+        }, 60_000, 100, metrics);
+
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername(" ");
+        blank.setTeamname("\t");
+        coalescer.search(blank);
+        coalescer.search(new MemberSearchCondition());
+
+        assertThat(loaded).containsExactly(blank); // 쿼리는 받은 조건 그대로, 두번째는 같은 키라 캐시
+        assertThat(count("cached")).isEqualTo(1);
+    }
+
+    private double count(String outcome) {
+        return registry.find("member.search.coalescing").tag("outcome", outcome).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
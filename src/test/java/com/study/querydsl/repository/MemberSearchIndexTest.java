@@ -0,0 +1,93 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchIndexTest {
+    MemberSearchIndex index;
+
+    @BeforeEach
+    public void before(){
+        index = new MemberSearchIndex(loader -> {
+            loader.team(1L, "teamA");
+            loader.team(2L, "teamB");
+            loader.member(1L, "member1", 10, 1L);
+            loader.member(2L, "member2", 20, 1L);
+            loader.member(3L, "member3", 30, 2L);
+            loader.member(4L, "member4", 40, 2L);
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        index.close();
+    }
+
+    @Test
+    public void searchAfterLoad(){
+        assertThat(index.search(condition(null, null, 20, null))).isNull(); // 적재 전에는 DB 로
+
+        index.rebuild();
+
+        assertThat(index.search(condition(null, "teamB", 35, 40)))
+                .extracting("username").containsExactly("member4");
+        assertThat(index.search(condition("member2", null, null, null)))
+                .extracting("teamname").containsExactly("teamA");
+        assertThat(index.search(condition(null, null, 15, 35)))
+                .extracting("memberId").containsExactly(2L, 3L);
+        assertThat(index.search(condition("nobody", null, null, null))).isEmpty();
+        assertThat(index.search(new MemberSearchCondition())).isNull(); // 조건 없으면 DB 로
+    }
+
+    @Test
+    public void applyEntityEvents(){
+        index.rebuild();
+
+        index.memberSaved(2L, "member2", 35, 2L); // 나이, 팀 변경
+        index.memberDeleted(4L);
+        index.teamSaved(2L, "teamC");
+
+        assertThat(index.search(condition(null, "teamC", null, null)))
+                .extracting("username").containsExactly("member2", "member3");
+        assertThat(index.search(condition(null, "teamB", null, null))).isEmpty();
+        assertThat(index.search(condition(null, null, 40, null))).isEmpty();
+    }
+
+    @Test
+    public void nearUniqueUsernamesStaySparse(){
+        int members = 200_000;
+        MemberSearchIndex large = new MemberSearchIndex(loader -> {
+            for (long t = 0; t < 1000; t++) {
+                loader.team(t, "team" + t);
+            }
+            for (long id = 0; id < members; id++) {
+                loader.member(id, "member" + id, (int) (id % 100), id % 1000);
+            }
+        });
+        try {
+            large.rebuild();
+
+            // username 마다 BitSet 이면 20만 x 2.5만 바이트 = 5GB, 지금은 회원당 수십 바이트
+            assertThat(large.slotSetBytes()).isLessThan(members * 24L);
+            assertThat(large.search(condition("member123456", "team456", 50, 60)))
+                    .extracting("memberId").containsExactly(123456L);
+            assertThat(large.search(condition("member123456", "team1", null, null))).isEmpty();
+            assertThat(large.search(condition(null, "team7", 7, 7))).hasSize(200);
+        } finally {
+            large.close();
+        }
+    }
+
+    private static MemberSearchCondition condition(String username, String teamname, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamname(teamname);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,74 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.support.CapturingStatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueriesTest {
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1",10,teamA));
+        em.persist(new Member("member2",20,teamA));
+        em.persist(new Member("member3",30,teamB));
+        em.persist(new Member("member4",40,null));
+        em.flush();
+        CapturingStatementInspector.clear();
+    }
+
+    @Test
+    public void countWithoutTeamCondition(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        long count = MemberSearchQueries.count(queryFactory, condition);
+
+        assertThat(count).isEqualTo(3);
+        String sql = lastStatement();
+        assertThat(sql).contains("count(member0_.member_id)");
+        assertThat(sql).doesNotContain("join");
+    }
+
+    @Test
+    public void countWithTeamCondition(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+
+        long count = MemberSearchQueries.count(queryFactory, condition);
+
+        assertThat(count).isEqualTo(2);
+        String sql = lastStatement();
+        assertThat(sql).contains("count(member0_.member_id)");
+        assertThat(sql).contains("inner join team");
+    }
+
+    private String lastStatement() {
+        List<String> statements = CapturingStatementInspector.statements();
+        assertThat(statements).isNotEmpty();
+        return statements.get(statements.size() - 1).toLowerCase();
+    }
+}
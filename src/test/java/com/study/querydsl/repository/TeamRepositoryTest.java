@@ -0,0 +1,162 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.TeamMembersDto;
+import com.study.querydsl.dto.TeamStatsDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.support.CapturingStatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void findTeamsWithMembers(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1",10,teamA));
+        em.persist(new Member("member2",20,teamA));
+        em.persist(new Member("member3",30,teamC));
+        em.flush();
+        em.clear();
+        CapturingStatementInspector.clear();
+
+        Page<TeamMembersDto> page = teamRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("name").containsExactly("teamA","teamB");
+        assertThat(page.getContent().get(0).getMembers()).extracting("username").containsExactly("member1","member2");
+        assertThat(page.getContent().get(1).getMembers()).isEmpty();
+
+        // 팀 페이지, 회원 in 쿼리, 카운트 - 팀 수와 무관하게 3번
+        assertThat(CapturingStatementInspector.statements()).hasSize(3);
+    }
+
+    @Test
+    public void teamStatsFollowMemberChanges(){
+        Team statsA = new Team("statsA");
+        Team statsB = new Team("statsB");
+        em.persist(statsA);
+        em.persist(statsB);
+        Member member1 = new Member("member1", 10, statsA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, statsA));
+        em.persist(new Member("member3", 30, statsB));
+        em.flush();
+        em.clear();
+
+        assertThat(stats("statsA")).extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(2L, 30L, 10, 20);
+        assertThat(stats("statsA").getAgeAvg()).isEqualTo(15);
+        assertStatsMatchMembers();
+
+        // 팀 이동 - statsA 의 min 이 빠진다
+        Member moved = em.find(Member.class, member1.getId());
+        moved.changeTeam(em.find(Team.class, statsB.getId()));
+        em.flush();
+        em.clear();
+        assertThat(stats("statsA")).extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(1L, 20L, 20, 20);
+        assertThat(stats("statsB")).extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(2L, 40L, 10, 30);
+
+        // 나이 변경
+        em.find(Member.class, member1.getId()).setAge(50);
+        em.flush();
+        em.clear();
+        assertThat(stats("statsB")).extracting("ageSum", "ageMax").containsExactly(80L, 50);
+
+        // 벌크 연산은 이벤트가 없으므로 관련 팀만 다시 계산
+        memberJpaRepository.bulkAgePlus(25, 1);
+        assertStatsMatchMembers();
+        memberJpaRepository.bulkDeleteByAgeGt(40);
+        assertThat(stats("statsB")).extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(1L, 30L, 30, 30);
+        assertStatsMatchMembers();
+    }
+
+    @Test
+    public void teamStatsApplyAgeDeltas(){
+        Team statsC = new Team("statsC");
+        em.persist(statsC);
+        Member middle = new Member("member1", 20, statsC);
+        em.persist(new Member("member2", 10, statsC));
+        em.persist(middle);
+        em.persist(new Member("member3", 30, statsC));
+        em.flush();
+        em.clear();
+
+        // min/max 가 아닌 나이 변경 - count 그대로, sum 만 델타
+        em.find(Member.class, middle.getId()).setAge(25);
+        em.flush();
+        em.clear();
+        assertThat(stats("statsC")).extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(3L, 65L, 10, 30);
+
+        // 새 min
+        em.find(Member.class, middle.getId()).setAge(5);
+        em.flush();
+        em.clear();
+        assertThat(stats("statsC")).extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(3L, 45L, 5, 30);
+
+        // min 이었던 나이가 빠짐 - 다시 계산
+        em.find(Member.class, middle.getId()).setAge(20);
+        em.flush();
+        em.clear();
+        assertThat(stats("statsC")).extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(3L, 60L, 10, 30);
+        assertStatsMatchMembers();
+    }
+
+    private TeamStatsDto stats(String teamname) {
+        return teamRepository.findTeamStats().stream()
+                .filter(s -> s.getTeamname().equals(teamname))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
+
+    // 읽기 모델과 회원 전체 집계가 같아야 한다
+    private void assertStatsMatchMembers() {
+        List<Tuple> actual = new JPAQueryFactory(em)
+                .select(team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch();
+        Map<String, TeamStatsDto> byName = teamRepository.findTeamStats().stream()
+                .collect(Collectors.toMap(TeamStatsDto::getTeamname, s -> s));
+
+        assertThat(byName).hasSameSizeAs(actual);
+        for (Tuple row : actual) {
+            TeamStatsDto stats = byName.get(row.get(team.name));
+            assertThat(stats.getMemberCount()).isEqualTo(row.get(member.count()));
+            assertThat(stats.getAgeSum()).isEqualTo(row.get(2, Number.class).longValue()); // sum 은 Long 으로 온다
+            assertThat(stats.getAgeMin()).isEqualTo(row.get(member.age.min()));
+            assertThat(stats.getAgeMax()).isEqualTo(row.get(member.age.max()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.study.querydsl.support;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.UserDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class LambdaProjectionsTest {
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void beanBySetter(){
+        List<MemberDto> result = queryFactory
+                .select(LambdaProjections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result).containsExactly(new MemberDto("member1", 10), new MemberDto("member2", 20));
+    }
+
+    @Test
+    public void beanByAlias(){
+        QMember memSub = new QMember("memSub");
+
+        List<UserDto> result = queryFactory
+                .select(LambdaProjections.bean(UserDto.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(JPAExpressions.select(memSub.age.avg()).from(memSub), "age")))
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).extracting("name").containsExactly("member1", "member2");
+        assertThat(result).extracting("age").containsOnly(15.0);
+    }
+
+    @Test
+    public void constructorWithNulls(){
+        List<MemberTeamDto> result = queryFactory
+                .select(LambdaProjections.constructor(MemberTeamDto.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result).extracting("teamname").containsExactly("teamA", null);
+        assertThat(result.get(1).getTeamId()).isNull();
+    }
+
+    @Test
+    public void constructorWidensPrimitive(){
+        List<UserDto> result = queryFactory
+                .select(LambdaProjections.constructor(UserDto.class, member.username, member.age)) // Integer -> double
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result).extracting("age").containsExactly(10.0, 20.0);
+    }
+
+    @Test
+    public void noMatchingConstructor(){
+        assertThatThrownBy(() -> LambdaProjections.constructor(MemberDto.class, member.age, member.username))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.study.querydsl.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberDataGeneratorTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberDataGenerator generator;
+
+    @Test
+    public void generateSkewed(){
+        long saved = generator.generate(12_000, 50, 1.0, 500, 42L);
+
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        List<Tuple> perTeam = queryFactory
+                .select(team.name, member.count(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.startsWith("team"), team.name.notIn("teamA", "teamB"))
+                .groupBy(team.name)
+                .fetch();
+
+        assertThat(saved).isEqualTo(12_000);
+        assertThat(perTeam.stream().mapToLong(t -> t.get(member.count())).sum()).isEqualTo(12_000);
+        assertThat(perTeam).hasSizeLessThanOrEqualTo(50);
+        long team0 = count(perTeam, "team0");
+        long team49 = count(perTeam, "team49");
+        assertThat(team0).isGreaterThan(team49 * 10); // zipf - 1등 팀이 50등 팀의 약 50배
+        assertThat(perTeam).allSatisfy(t -> {
+            assertThat(t.get(member.age.min())).isGreaterThanOrEqualTo(15);
+            assertThat(t.get(member.age.max())).isLessThanOrEqualTo(99);
+        });
+    }
+
+    @Test
+    public void ageDistribution(){
+        Random random = new Random(1);
+        int[] ages = new int[10_000];
+        for (int i = 0; i < ages.length; i++) {
+            ages[i] = MemberDataGenerator.age(random);
+        }
+        long under40 = Arrays.stream(ages).filter(age -> age < 40).count();
+        assertThat(under40).isBetween(7_000L, 9_500L);
+        assertThat(Arrays.stream(ages).max().getAsInt()).isGreaterThan(60);
+    }
+
+    private static long count(List<Tuple> perTeam, String name) {
+        return perTeam.stream()
+                .filter(t -> name.equals(t.get(team.name)))
+                .mapToLong(t -> t.get(member.count()))
+                .findFirst()
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,74 @@
+package com.study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@SpringBootTest
+@Transactional
+class NPlusOneDetectorTest {
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        queryFactory = new JPAQueryFactory(em);
+        for (int i = 0; i < 4; i++) {
+            Team t = new Team("team" + i);
+            em.persist(t);
+            em.persist(new Member("member" + i, i, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void lazyTeamInLoopFails(){
+        List<Member> members = queryFactory.selectFrom(member).fetch();
+
+        Throwable thrown = catchThrowable(() -> {
+            for (Member m : members) {
+                m.getTeam().getName(); // 팀마다 select
+            }
+        });
+
+        assertThat(causes(thrown)).isNotNull();
+        assertThat(causes(thrown).getMessage()).contains("com.study.querydsl.entity.Team");
+    }
+
+    @Test
+    public void fetchJoinPasses(){
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+
+        for (Member m : members) {
+            assertThat(m.getTeam().getName()).startsWith("team");
+        }
+    }
+
+    private NPlusOneException causes(Throwable thrown) {
+        for (Throwable t = thrown; t != null; t = t.getCause()) {
+            if (t instanceof NPlusOneException) {
+                return (NPlusOneException) t;
+            }
+        }
+        return null;
+    }
+}
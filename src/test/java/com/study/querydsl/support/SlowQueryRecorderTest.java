@@ -0,0 +1,100 @@
+package com.study.querydsl.support;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"member.slow-query.threshold-millis=0", "member.slow-query.capacity=5",
+        "member.slow-query.explain=true", "member.slow-query.explain-interval-millis=0"})
+@Transactional
+class SlowQueryRecorderTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    SlowQueryRecorder recorder;
+    @Autowired
+    SlowQueryEndpoint endpoint;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+        recorder.clear();
+    }
+
+    @Test
+    public void recordSelect() throws InterruptedException {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        memberJpaRepository.search(condition);
+
+        SlowQueryRecorder.SlowQuery slowQuery = recorder.recent().get(0);
+        assertThat(slowQuery.getSql()).contains("select").contains("?");
+        assertThat(slowQuery.getSqlWithValues()).contains("'member1'");
+        assertThat(slowQuery.getMethod()).startsWith("MemberJpaRepository.search");
+        assertThat(slowQuery.getRows()).isEqualTo(1);
+        assertThat(awaitPlan(slowQuery)).containsIgnoringCase("select").doesNotStartWith("explain failed"); // 별도 스레드에서 채워진다
+    }
+
+    @Test
+    public void recordUpdate(){
+        long affected = memberJpaRepository.bulkDeleteByAgeGt(15);
+
+        // 뒤이어 TeamStatsTracker.recompute 의 team_stats 갱신도 기록되므로 member delete 를 찾는다
+        SlowQueryRecorder.SlowQuery slowQuery = recorder.recent().stream()
+                .filter(q -> q.getSql().toLowerCase().startsWith("delete from member"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertThat(slowQuery.getMethod()).startsWith("MemberJpaRepository.bulkDeleteByAgeGt");
+        assertThat(slowQuery.getRows()).isEqualTo(affected);
+    }
+
+    @Test
+    public void rejectNonPositiveCapacity(){
+        assertThatThrownBy(() -> new SlowQueryRecorder(200, 0, false, 1000, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void boundedNewestFirst(){
+        for (int age = 0; age < 10; age++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(age);
+            memberJpaRepository.search(condition);
+        }
+
+        List<SlowQueryRecorder.SlowQuery> recent = endpoint.slowQueries();
+        assertThat(recent).hasSize(5);
+        assertThat(recent.get(0).getSqlWithValues()).contains("9");
+        assertThat(recent.get(0).getAt()).isAfterOrEqualTo(recent.get(4).getAt());
+
+        endpoint.clear();
+        assertThat(recorder.recent()).isEmpty();
+    }
+
+    private static String awaitPlan(SlowQueryRecorder.SlowQuery slowQuery) throws InterruptedException {
+        for (int i = 0; i < 50 && slowQuery.getPlan() == null; i++) {
+            Thread.sleep(100);
+        }
+        return slowQuery.getPlan();
+    }
+}